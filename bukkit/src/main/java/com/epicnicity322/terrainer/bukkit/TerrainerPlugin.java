@@ -48,6 +48,9 @@ import com.epicnicity322.terrainer.core.Terrainer;
 import com.epicnicity322.terrainer.core.TerrainerVersion;
 import com.epicnicity322.terrainer.core.config.Configurations;
 import com.epicnicity322.terrainer.core.flag.Flags;
+import com.epicnicity322.terrainer.core.placeholder.PlaceholderCache;
+import com.epicnicity322.terrainer.core.protection.BlockDecisionCache;
+import com.epicnicity322.terrainer.core.protection.DecisionCache;
 import com.epicnicity322.terrainer.core.terrain.TerrainManager;
 import com.epicnicity322.terrainer.core.util.PlayerUtil;
 import com.epicnicity322.terrainer.core.util.TerrainerDailyTimer;
@@ -58,6 +61,7 @@ import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.World;
 import org.bukkit.command.PluginCommand;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.HandlerList;
@@ -109,6 +113,8 @@ public final class TerrainerPlugin extends JavaPlugin {
     private final @NotNull SelectionListener selectionListener = new SelectionListener(new NamespacedKey(this, "selector-wand"), new NamespacedKey(this, "info-wand"), infoCommand);
     private final @NotNull Set<TerrainerCommand> commands = Set.of(bordersCommand, new ClaimCommand(), new ConfirmCommand(), new DefineCommand(), new DeleteCommand(), new DescriptionCommand(), new FlagCommand(), new PermissionCommand.GrantCommand(), new PermissionCommand.RevokeCommand(), infoCommand, new LimitCommand(), new ListCommand(infoCommand), new PosCommand.Pos1Command(), new PosCommand.Pos2Command(), new Pos3DCommand.Pos13DCommand(), new Pos3DCommand.Pos23DCommand(), new PriorityCommand(), new ReloadCommand(), new RenameCommand(), new ResizeCommand(), new ShopCommand(), new TeleportCommand(this), new TransferCommand(), new WandCommand());
     private final @NotNull AtomicBoolean enterLeaveEvents = new AtomicBoolean(true);
+    private final @NotNull AtomicBoolean listenersByFlagUsage = new AtomicBoolean(false);
+    private final @NotNull AtomicBoolean flagUsageUpdatePending = new AtomicBoolean(false);
     private final @NotNull PreLoginListener preLoginListener = new PreLoginListener();
     private final @NotNull ProtectionsListener protectionsListener;
     private final @NotNull PistonListener pistonListener;
@@ -228,6 +234,19 @@ public final class TerrainerPlugin extends JavaPlugin {
         sumIfTheresMultipleBlockLimitPermissions.set(config.getBoolean("Limits.Sum If Theres Multiple Block Limit Permissions").orElse(true));
         sumIfTheresMultipleClaimLimitPermissions.set(config.getBoolean("Limits.Sum If Theres Multiple Claim Limit Permissions").orElse(true));
 
+        // Placeholder cache options
+        var placeholderTimesToLive = new HashMap<String, Long>();
+        ConfigurationSection placeholderTimesToLiveSection = config.getConfigurationSection("Placeholder Cache.Placeholder Time To Live");
+        if (placeholderTimesToLiveSection != null) {
+            for (Map.Entry<String, Object> node : placeholderTimesToLiveSection.getNodes().entrySet()) {
+                try {
+                    placeholderTimesToLive.put(node.getKey().toLowerCase(Locale.ROOT), Long.parseLong(node.getValue().toString()));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        PlaceholderCache.setOptions(config.getBoolean("Placeholder Cache.Enabled").orElse(true), config.getNumber("Placeholder Cache.Time To Live").orElse(1000).longValue(), placeholderTimesToLive, config.getBoolean("Placeholder Cache.Invalidate On Terrain Change").orElse(true), new HashSet<>(config.getCollection("Placeholder Cache.Async Refresh", obj -> obj.toString().toLowerCase(Locale.ROOT))));
+
         // Marker options
         try {
             ReflectionHookOptions.setMarkerColors(Integer.parseInt(config.getString("Markers.Selection Color").orElse("FFFF55"), 16), Integer.parseInt(config.getString("Markers.Terrain Color").orElse("FFFFFF"), 16), Integer.parseInt(config.getString("Markers.Created Color").orElse("55FF55"), 16));
@@ -238,6 +257,10 @@ public final class TerrainerPlugin extends JavaPlugin {
         ReflectionHookOptions.setUnsupportedVersionPlayersSeeSlimeEntity(config.getBoolean("Markers.Unsupported Version Players See Slime Entity").orElse(true));
         ReflectionHookOptions.setBedrockPlayersSeeSlimeEntity(config.getBoolean("Markers.Bedrock Players See Slime Entity").orElse(true));
 
+        // Protection decisions might've been made with the previous configurations.
+        DecisionCache.clear();
+        BlockDecisionCache.clear();
+
         // Instance required from now on
         if (instance == null) return false;
 
@@ -318,6 +341,11 @@ public final class TerrainerPlugin extends JavaPlugin {
         pm.registerEvents(protectionsListener, this);
         pm.registerEvents(new FlagListener(), this);
         pm.registerEvents(selectionListener, this);
+        // Players might be riding entities already if the plugin was reloaded.
+        for (Player player : getServer().getOnlinePlayers()) {
+            Entity vehicle = player.getVehicle();
+            if (vehicle != null) EnterLeaveListener.addPlayerCarrier(vehicle);
+        }
 
         TerrainManager.setOnTerrainAddListener(event -> {
             var add = new TerrainAddEvent(event.terrain());
@@ -329,6 +357,19 @@ public final class TerrainerPlugin extends JavaPlugin {
             getServer().getPluginManager().callEvent(remove);
             return remove.isCancelled();
         });
+        TerrainManager.setOnBoundsChangeListener(EnterLeaveListener::invalidateSafeBoxes);
+        TerrainManager.setOnFlagUsageChangeListener(() -> {
+            if (!listenersByFlagUsage.get()) return;
+            // Flags that started being used must be protected right away, but listeners can only be toggled on the server thread.
+            // Terrains are loaded in parallel, so changes from other threads are handled by the task below.
+            if (!EpicPluginLib.Platform.isFolia() && getServer().isPrimaryThread()) updateFlagDrivenListeners(false);
+            // Usage changes come in bursts while terrains load, so listeners are updated only once in the next tick.
+            if (!flagUsageUpdatePending.compareAndSet(false, true)) return;
+            Terrainer.taskFactory().global().delayed(1, task -> {
+                flagUsageUpdatePending.set(false);
+                updateFlagDrivenListeners(true);
+            });
+        });
         TerrainManager.setOnFlagSetListener(event -> {
             var set = new FlagSetEvent<>(event);
             getServer().getPluginManager().callEvent(set);
@@ -350,6 +391,8 @@ public final class TerrainerPlugin extends JavaPlugin {
             // Loading worlds and world load listener.
             for (World world : getServer().getWorlds()) TerrainManager.loadWorld(world.getUID(), world.getName());
             pm.registerEvents(new WorldLoadListener(), this);
+            // Usage changes while loading happened off the server thread, so listeners of loaded flags are registered now.
+            updateFlagDrivenListeners(true);
 
             logger.log(TerrainManager.allTerrains().size() + " terrains loaded.");
         } catch (IOException e) {
@@ -402,17 +445,46 @@ public final class TerrainerPlugin extends JavaPlugin {
     }
 
     private void loadListener(@NotNull ToggleableListener listener, boolean register, @NotNull String name, boolean plural) {
+        if (!register) {
+            logger.log(name + " event" + (plural ? "s are" : " is") + " disabled! Protections and features related to " + (plural ? "these events" : "this event") + " will not work.", ConsoleLogger.Level.WARN);
+        }
+        toggleListener(listener, register);
+    }
+
+    private void toggleListener(@NotNull ToggleableListener listener, boolean register) {
         if (register) {
             if (!listener.registered.get()) {
                 getServer().getPluginManager().registerEvents(listener, this);
                 listener.registered.set(true);
             }
-        } else {
-            logger.log(name + " event" + (plural ? "s are" : " is") + " disabled! Protections and features related to " + (plural ? "these events" : "this event") + " will not work.", ConsoleLogger.Level.WARN);
-            if (listener.registered.get()) {
-                HandlerList.unregisterAll(listener);
-                listener.registered.set(false);
-            }
+        } else if (listener.registered.get()) {
+            HandlerList.unregisterAll(listener);
+            listener.registered.set(false);
+        }
+    }
+
+    /**
+     * Registers the listeners of flags only while any terrain has the flags set, so the server doesn't dispatch events
+     * that would always be allowed. Listeners disabled in config are left unregistered.
+     *
+     * @param unregister Whether listeners of unused flags should be unregistered, or only listeners of used flags should
+     *                   be registered.
+     */
+    private synchronized void updateFlagDrivenListeners(boolean unregister) {
+        if (!listenersByFlagUsage.get()) return;
+        Configuration config = Configurations.CONFIG.config();
+
+        if (!config.getBoolean("Protections And Performance.Disable Piston Events").orElse(false)) {
+            boolean used = !TerrainManager.isFlagAlwaysAllowed(Flags.PISTONS) || !TerrainManager.isFlagAlwaysAllowed(Flags.OUTSIDE_PISTONS);
+            if (used || unregister) toggleListener(pistonListener, used);
+        }
+        if (!config.getBoolean("Protections And Performance.Disable Block From To Event").orElse(false)) {
+            boolean used = !TerrainManager.isFlagAlwaysAllowed(Flags.LIQUID_FLOW) || !TerrainManager.isFlagAlwaysAllowed(Flags.BUILD);
+            if (used || unregister) toggleListener(blockFromToListener, used);
+        }
+        if (!config.getBoolean("Protections And Performance.Disable Creature Spawn Event").orElse(false)) {
+            boolean used = !TerrainManager.isFlagAlwaysAllowed(Flags.MOB_SPAWN) || !TerrainManager.isFlagAlwaysAllowed(Flags.SPAWNERS);
+            if (used || unregister) toggleListener(creatureSpawnListener, used);
         }
     }
 
@@ -433,6 +505,9 @@ public final class TerrainerPlugin extends JavaPlugin {
         loadListener(pistonListener, pistonEvents, "Piston", true);
         loadListener(blockFromToListener, blockFromToEvent, "Block From/To", false);
         loadListener(creatureSpawnListener, creatureSpawnEvent, "Creature Spawn", false);
+
+        listenersByFlagUsage.set(config.getBoolean("Protections And Performance.Register Listeners By Flag Usage").orElse(false));
+        updateFlagDrivenListeners(true);
     }
 
     private void reloadUpdater() {
@@ -35,7 +35,6 @@ import net.kyori.adventure.text.event.ClickEvent;
 import net.kyori.adventure.text.event.HoverEvent;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import org.bukkit.Bukkit;
-import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.command.CommandSender;
@@ -90,12 +89,7 @@ public final class InfoCommand extends TerrainerCommand {
                 Terrain terrain = TerrainManager.terrainByID(id);
                 terrains = terrain != null ? new ArrayList<>(List.of(terrain)) : Collections.emptyList();
             } else {
-                terrains = new ArrayList<>();
-                String name = CommandUtil.join(args, 1);
-
-                for (Terrain t : TerrainManager.allTerrains()) {
-                    if (ChatColor.stripColor(t.name()).equals(name)) terrains.add(t);
-                }
+                terrains = TerrainManager.terrainsNamed(CommandUtil.join(args, 1));
             }
         } else if (sender instanceof Player player) {
             Location loc = player.getLocation();
@@ -83,9 +83,7 @@ public final class ListCommand extends TerrainerCommand {
             terrains.addAll(TerrainManager.allTerrains());
         } else {
             UUID id = target == CommandUtil.TargetResponse.CONSOLE ? null : target.id();
-            for (Terrain t : TerrainManager.allTerrains()) {
-                if (Objects.equals(id, t.owner())) terrains.add(t);
-            }
+            terrains.addAll(TerrainManager.terrainsOf(id));
         }
 
         String who = target.who().get();
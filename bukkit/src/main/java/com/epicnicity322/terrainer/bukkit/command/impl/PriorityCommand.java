@@ -26,13 +26,16 @@ import com.epicnicity322.terrainer.bukkit.command.TerrainerCommand;
 import com.epicnicity322.terrainer.bukkit.util.CommandUtil;
 import com.epicnicity322.terrainer.core.terrain.Terrain;
 import com.epicnicity322.terrainer.core.terrain.TerrainManager;
+import com.epicnicity322.terrainer.core.terrain.WorldTerrain;
 import com.epicnicity322.terrainer.core.util.TerrainerUtil;
 import org.bukkit.Location;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
@@ -162,7 +165,12 @@ public final class PriorityCommand extends TerrainerCommand {
     }
 
     private List<Terrain> getOverlappingTerrains(Terrain terrain) {
-        return TerrainManager.terrains(terrain.world()).filter(terrain::isOverlapping).toList();
+        if (terrain instanceof WorldTerrain) return Collections.emptyList();
+        var overlapping = new ArrayList<Terrain>(TerrainManager.terrainsIntersecting(terrain.world(), terrain.minDiagonal(), terrain.maxDiagonal()));
+        // The intersecting terrains are only candidates, since terrains might not be cuboid shaped.
+        overlapping.removeIf(t -> !terrain.isOverlapping(t));
+        overlapping.sort(TerrainManager.PRIORITY_COMPARATOR);
+        return overlapping;
     }
 
     private boolean checkIfTerrainsHaveSamePriority(Collection<Terrain> terrains) {
@@ -21,6 +21,7 @@ package com.epicnicity322.terrainer.bukkit.hook.placeholderapi;
 import com.epicnicity322.terrainer.bukkit.placeholder.*;
 import com.epicnicity322.terrainer.bukkit.util.CommandUtil;
 import com.epicnicity322.terrainer.core.TerrainerVersion;
+import com.epicnicity322.terrainer.core.placeholder.PlaceholderCache;
 import com.epicnicity322.terrainer.core.placeholder.formatter.*;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import org.bukkit.Bukkit;
@@ -82,6 +83,16 @@ public class TerrainerPlaceholderExpansion extends PlaceholderExpansion {
         }
     }
 
+    /**
+     * Whether the result of the placeholder changes with the player who requested it, so it's cached per requester.
+     */
+    private static boolean dependsOnRequester(@NotNull PlaceholderFormatter<OfflinePlayer, Player> formatter, @NotNull String params) {
+        if (params.contains(PLAYER_NAMESPACE)) return false;
+        if (formatter.isPlayerRelevant()) return true;
+        // Rankings per world use the world of the requester, if no world is specified.
+        return formatter instanceof PerWorldRankPlaceholderFormatter<OfflinePlayer, Player> && !params.contains(WorldPlaceholderFormatter.WORLD_NAMESPACE);
+    }
+
     @Override
     public final @NotNull String getIdentifier() {
         return IDENTIFIER;
@@ -111,9 +122,16 @@ public class TerrainerPlaceholderExpansion extends PlaceholderExpansion {
 
         PlaceholderFormatter<OfflinePlayer, Player> formatter = placeholders.get(placeholderName.toLowerCase(Locale.ROOT));
         if (formatter == null) return null;
-        String value = formatter.formatPlaceholder(player(player, params), params);
-        if (value == null) return null;
-        return ChatColor.translateAlternateColorCodes('&', value);
+        // The player and the result only depend on the requester and params, so the resolved player is cached along with the result.
+        UUID requester = player == null || !dependsOnRequester(formatter, params) ? null : player.getUniqueId();
+        // Players given in params are resolved with the server's API.
+        boolean asyncSafe = formatter.usesOnlyTerrainData() && !params.contains(PLAYER_NAMESPACE);
+
+        return PlaceholderCache.get(formatter.name(), requester, params, asyncSafe, () -> {
+            String value = formatter.formatPlaceholder(player(player, params), params);
+            if (value == null) return null;
+            return ChatColor.translateAlternateColorCodes('&', value);
+        });
     }
 
     @Override
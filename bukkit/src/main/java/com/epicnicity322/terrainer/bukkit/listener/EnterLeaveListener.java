@@ -25,6 +25,7 @@ import com.epicnicity322.terrainer.bukkit.event.terrain.*;
 import com.epicnicity322.terrainer.bukkit.util.ToggleableListener;
 import com.epicnicity322.terrainer.core.Terrainer;
 import com.epicnicity322.terrainer.core.event.TerrainEnterLeaveEvent.EnterLeaveReason;
+import com.epicnicity322.terrainer.core.location.Coordinate;
 import com.epicnicity322.terrainer.core.terrain.Terrain;
 import com.epicnicity322.terrainer.core.terrain.TerrainManager;
 import org.bukkit.Bukkit;
@@ -37,11 +38,14 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.player.*;
 import org.bukkit.event.vehicle.VehicleMoveEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
 import org.bukkit.util.Vector;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A listener for enter leave (movement) events.
@@ -53,6 +57,30 @@ public final class EnterLeaveListener extends ToggleableListener {
     // Entity#getYaw and Entity#getPitch are only available on Paper.
     private static final boolean getYawAndPitchMethod = ReflectionUtil.getMethod(Entity.class, "getYaw") != null && ReflectionUtil.getMethod(Entity.class, "getPitch") != null;
     private static final @NotNull Vector zero = new Vector(0, 0, 0);
+    /**
+     * The distance in blocks from the player to the sides of safe boxes, before they're shrunk by the terrains around.
+     */
+    private static final int SAFE_BOX_RADIUS = 16;
+    /**
+     * When this amount of safe boxes is reached, they are cleared, so boxes of vehicles that once carried players don't
+     * pile up.
+     */
+    private static final int MAX_SAFE_BOXES = 4096;
+    /**
+     * The boxes around players and entities carrying players where the terrains they're in can't change, by the UUID of
+     * the moving entity.
+     */
+    private static final @NotNull Map<UUID, SafeBox> safeBoxes = new ConcurrentHashMap<>();
+    /**
+     * The amount of times safe boxes were invalidated, so boxes found while terrains changed are not kept.
+     */
+    private static final @NotNull AtomicLong safeBoxInvalidations = new AtomicLong();
+    /**
+     * The UUIDs of the entities that are carrying players, so moves of other entities can be ignored without looking
+     * for players in their passengers. Entities are added when mounted, and removed when the players dismount, quit or
+     * teleport away, when the entities are unloaded, or once they're found moving without players.
+     */
+    private static final @NotNull Set<UUID> playerCarriers = ConcurrentHashMap.newKeySet();
     private static @NotNull List<String> commandsOnEntryCancelled = Collections.emptyList();
 
     static {
@@ -75,6 +103,49 @@ public final class EnterLeaveListener extends ToggleableListener {
         return players;
     }
 
+    /**
+     * Registers the entity and the entities carrying it as carriers of players.
+     *
+     * @param carrier The entity a player is riding, directly or through other passengers.
+     */
+    public static void addPlayerCarrier(@NotNull Entity carrier) {
+        for (Entity entity = carrier; entity != null; entity = entity.getVehicle()) {
+            playerCarriers.add(entity.getUniqueId());
+        }
+    }
+
+    /**
+     * Unregisters the entity and the entities carrying it as carriers of players, unless they still carry players other
+     * than through the leaving entity.
+     *
+     * @param carrier The entity the leaving entity was riding.
+     * @param leaving The entity that is leaving the carrier.
+     */
+    static void removePlayerCarrier(@NotNull Entity carrier, @NotNull Entity leaving) {
+        for (Entity entity = carrier; entity != null; entity = entity.getVehicle()) {
+            // The vehicles of an entity carrying players also carry them.
+            if (carriesPlayers(entity, leaving)) return;
+            playerCarriers.remove(entity.getUniqueId());
+            safeBoxes.remove(entity.getUniqueId());
+        }
+    }
+
+    private static boolean carriesPlayers(@NotNull Entity entity, @NotNull Entity ignored) {
+        for (Entity passenger : entity.getPassengers()) {
+            if (passenger.equals(ignored)) continue;
+            if (passenger instanceof Player || carriesPlayers(passenger, ignored)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param entity The entity to check.
+     * @return Whether the entity was registered as a carrier of players with {@link #addPlayerCarrier(Entity)}.
+     */
+    static boolean isPlayerCarrier(@NotNull Entity entity) {
+        return playerCarriers.contains(entity.getUniqueId());
+    }
+
     static void handlePassengerCarrier(@NotNull Entity vehicle, @NotNull Location from, @NotNull Location to) {
         int fromX = from.getBlockX(), fromY = from.getBlockY(), fromZ = from.getBlockZ();
         int toX = to.getBlockX(), toY = to.getBlockY(), toZ = to.getBlockZ();
@@ -87,16 +158,31 @@ public final class EnterLeaveListener extends ToggleableListener {
         Set<Player> players = getPassengers(vehicle, null);
 
         if (pVehicle == null) {
-            if (players == null) return;
+            if (players == null) {
+                // The players dismounted, the entity no longer needs to be handled.
+                playerCarriers.remove(vehicle.getUniqueId());
+                return;
+            }
         } else if (players == null) players = Collections.emptySet();
 
         UUID world = vehicle.getWorld().getUID();
+        UUID vehicleID = vehicle.getUniqueId();
+        SafeBox box = safeBoxes.get(vehicleID);
+
+        // Moves within the safe box can't enter or leave terrains, so no terrains have to be looked up.
+        if (box != null && box.contains(world, fromX, fromY, fromZ) && box.contains(world, toX, toY, toZ)) {
+            return;
+        }
+        if (sameTerrains(world, fromX, fromY, fromZ, toX, toY, toZ)) {
+            updateSafeBox(vehicleID, world, toX, toY, toZ);
+            return;
+        }
+
         Set<Terrain> fromTerrains = TerrainManager.terrainsAt(world, fromX, fromY, fromZ);
         Set<Terrain> toTerrains = TerrainManager.terrainsAt(world, toX, toY, toZ);
-        Set<Terrain> leftTerrains = new HashSet<>(fromTerrains);
-        Set<Terrain> enteredTerrains = new HashSet<>(toTerrains);
-
-        leftTerrains.removeIf(enteredTerrains::remove); // Removing the intersection of the sets, leaving only the actual left and entered terrains.
+        // Events are only called for the sides that are not empty.
+        Set<Terrain> leftTerrains = TerrainManager.difference(fromTerrains, toTerrains);
+        Set<Terrain> enteredTerrains = TerrainManager.difference(toTerrains, fromTerrains);
 
         if (!leftTerrains.isEmpty()) {
             if (pVehicle != null && callCanLeave(leftTerrains, fromTerrains, toTerrains, from, to, pVehicle, reason)) {
@@ -136,6 +222,32 @@ public final class EnterLeaveListener extends ToggleableListener {
             for (Player player : players)
                 callEnter(enteredTerrains, fromTerrains, toTerrains, from, to, player, reason);
         }
+
+        updateSafeBox(vehicleID, world, toX, toY, toZ);
+    }
+
+    private static void updateSafeBox(@NotNull UUID entity, @NotNull UUID world, int x, int y, int z) {
+        long invalidations = safeBoxInvalidations.get();
+        SafeBox box = SafeBox.around(world, x, y, z);
+
+        if (box == null) {
+            safeBoxes.remove(entity);
+            return;
+        }
+        if (safeBoxes.size() >= MAX_SAFE_BOXES) safeBoxes.clear();
+        safeBoxes.put(entity, box);
+        // Terrains changed while the box was being found, so it might've missed the change.
+        if (safeBoxInvalidations.get() != invalidations) safeBoxes.remove(entity, box);
+    }
+
+    /**
+     * Discards the safe boxes that intersect the area where the terrains at a block might've changed.
+     *
+     * @see TerrainManager.BoundsChangeListener#onBoundsChange(UUID, int, int, int, int)
+     */
+    public static void invalidateSafeBoxes(@NotNull UUID world, int minX, int minZ, int maxX, int maxZ) {
+        safeBoxInvalidations.incrementAndGet();
+        safeBoxes.values().removeIf(box -> box.intersects(world, minX, minZ, maxX, maxZ));
     }
 
     private static void cancelMovement(@NotNull Location from, @NotNull Location to, @NotNull Set<Player> players, @Nullable Player pVehicle, @NotNull Entity vehicle) {
@@ -199,13 +311,13 @@ public final class EnterLeaveListener extends ToggleableListener {
 
         // Only full block moves are processed to save performance.
         if (fromX == toX && fromY == toY && fromZ == toZ) return false;
+        if (worldFrom.equals(worldTo) && sameTerrains(worldFrom, fromX, fromY, fromZ, toX, toY, toZ)) return false;
 
         Set<Terrain> fromTerrains = TerrainManager.terrainsAt(worldFrom, fromX, fromY, fromZ);
         Set<Terrain> toTerrains = TerrainManager.terrainsAt(worldTo, toX, toY, toZ);
-        Set<Terrain> leftTerrains = new HashSet<>(fromTerrains);
-        Set<Terrain> enteredTerrains = new HashSet<>(toTerrains);
-
-        leftTerrains.removeIf(enteredTerrains::remove); // Removing the intersection of the sets, leaving only the actual left and entered terrains.
+        // Events are only called for the sides that are not empty.
+        Set<Terrain> leftTerrains = TerrainManager.difference(fromTerrains, toTerrains);
+        Set<Terrain> enteredTerrains = TerrainManager.difference(toTerrains, fromTerrains);
 
         boolean cancel = callCanLeave(leftTerrains, fromTerrains, toTerrains, from, to, player, reason);
         if (cancel) return true;
@@ -217,6 +329,15 @@ public final class EnterLeaveListener extends ToggleableListener {
         return false;
     }
 
+    /**
+     * Whether the same terrains are at both locations, so no terrain is entered or left. Most moves don't cross terrain
+     * borders, so this is checked without collecting the terrains of the locations.
+     */
+    private static boolean sameTerrains(@NotNull UUID world, int fromX, int fromY, int fromZ, int toX, int toY, int toZ) {
+        return TerrainManager.forEachTerrainAt(world, fromX, fromY, fromZ, terrain -> terrain.isWithin(toX, toY, toZ))
+                && TerrainManager.forEachTerrainAt(world, toX, toY, toZ, terrain -> terrain.isWithin(fromX, fromY, fromZ));
+    }
+
     private static boolean callCanLeave(@NotNull Set<Terrain> terrains, @Nullable Set<Terrain> fromTerrains, @Nullable Set<Terrain> toTerrains, @NotNull Location from, @NotNull Location to, @NotNull Player player, @NotNull EnterLeaveReason reason) {
         if (terrains.isEmpty()) return false;
 
@@ -260,6 +381,7 @@ public final class EnterLeaveListener extends ToggleableListener {
     public void onVehicleMove(VehicleMoveEvent event) {
         Location from = event.getFrom(), to = event.getTo();
         Vehicle vehicle = event.getVehicle();
+        if (!isPlayerCarrier(vehicle)) return;
         handlePassengerCarrier(vehicle, from, to);
     }
 
@@ -274,6 +396,14 @@ public final class EnterLeaveListener extends ToggleableListener {
         }
     }
 
+    // Players are dismounted when teleported.
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTeleportMonitor(PlayerTeleportEvent event) {
+        Player player = event.getPlayer();
+        Entity vehicle = player.getVehicle();
+        if (vehicle != null) removePlayerCarrier(vehicle, player);
+    }
+
     @EventHandler(priority = EventPriority.LOW)
     public void onRespawn(PlayerRespawnEvent event) {
         Player player = event.getPlayer();
@@ -287,6 +417,9 @@ public final class EnterLeaveListener extends ToggleableListener {
     @EventHandler
     public void onJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
+        Entity vehicle = player.getVehicle();
+        // Players may join riding the entities they were riding when they quit.
+        if (vehicle != null) addPlayerCarrier(vehicle);
         Location loc = player.getLocation();
         Set<Terrain> enteredTerrains = TerrainManager.terrainsAt(player.getWorld().getUID(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
 
@@ -302,6 +435,10 @@ public final class EnterLeaveListener extends ToggleableListener {
     @EventHandler
     public void onQuit(PlayerQuitEvent event) {
         Player player = event.getPlayer();
+        safeBoxes.remove(player.getUniqueId());
+        playerCarriers.remove(player.getUniqueId());
+        Entity vehicle = player.getVehicle();
+        if (vehicle != null) removePlayerCarrier(vehicle, player);
         Location loc = player.getLocation();
         Set<Terrain> leftTerrains = TerrainManager.terrainsAt(player.getWorld().getUID(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
 
@@ -309,6 +446,14 @@ public final class EnterLeaveListener extends ToggleableListener {
         callLeave(leftTerrains, leftTerrains, leftTerrains, loc, loc, player, EnterLeaveReason.LEAVE_SERVER);
     }
 
+    @EventHandler
+    public void onEntitiesUnload(EntitiesUnloadEvent event) {
+        if (playerCarriers.isEmpty()) return;
+        for (Entity entity : event.getEntities()) {
+            if (playerCarriers.remove(entity.getUniqueId())) safeBoxes.remove(entity.getUniqueId());
+        }
+    }
+
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onAdd(TerrainAddEvent event) {
         Terrain terrain = event.terrain();
@@ -346,4 +491,85 @@ public final class EnterLeaveListener extends ToggleableListener {
         }
     }
 
+    /**
+     * A box where every block is in the same terrains. Boxes are discarded with
+     * {@link #invalidateSafeBoxes(UUID, int, int, int, int)} when terrains around them are added, removed or change
+     * shape.
+     * Coordinates are inclusive.
+     */
+    private record SafeBox(@NotNull UUID world, int minX, int minY, int minZ, int maxX, int maxY,
+                           int maxZ) {
+        /**
+         * Finds a box around the block where the same terrains are present, by shrinking a box of
+         * {@link #SAFE_BOX_RADIUS} into the terrains the block is in, and out of the terrains the block is not in.
+         *
+         * @return The box, or null if there's a terrain with a custom shape around.
+         */
+        static @Nullable SafeBox around(@NotNull UUID world, int x, int y, int z) {
+            int[] block = {x, y, z};
+            int[] min = {x - SAFE_BOX_RADIUS, y - SAFE_BOX_RADIUS, z - SAFE_BOX_RADIUS};
+            int[] max = {x + SAFE_BOX_RADIUS, y + SAFE_BOX_RADIUS, z + SAFE_BOX_RADIUS};
+            int[] terrainMin = new int[3], terrainMax = new int[3];
+
+            for (Terrain terrain : TerrainManager.terrainsIntersecting(world, new Coordinate(min[0], min[1], min[2]), new Coordinate(max[0], max[1], max[2]))) {
+                // Only cuboid terrains are bounded by their diagonals.
+                if (terrain.getClass() != Terrain.class) return null;
+                Coordinate tMin = terrain.minDiagonal(), tMax = terrain.maxDiagonal();
+                terrainMin[0] = (int) Math.ceil(tMin.x());
+                terrainMin[1] = (int) Math.ceil(tMin.y());
+                terrainMin[2] = (int) Math.ceil(tMin.z());
+                terrainMax[0] = (int) Math.floor(tMax.x());
+                terrainMax[1] = (int) Math.floor(tMax.y());
+                terrainMax[2] = (int) Math.floor(tMax.z());
+
+                boolean intersects = true, within = true;
+                for (int axis = 0; axis < 3; axis++) {
+                    if (terrainMin[axis] > max[axis] || terrainMax[axis] < min[axis]) intersects = false;
+                    if (block[axis] < terrainMin[axis] || block[axis] > terrainMax[axis]) within = false;
+                }
+                // The box might've already been shrunk out of this terrain.
+                if (!intersects) continue;
+
+                if (within) {
+                    for (int axis = 0; axis < 3; axis++) {
+                        min[axis] = Math.max(min[axis], terrainMin[axis]);
+                        max[axis] = Math.min(max[axis], terrainMax[axis]);
+                    }
+                    continue;
+                }
+
+                // Cutting the terrain out of the box on the side that keeps the biggest box.
+                long bestVolume = -1;
+                int bestAxis = 0, bestMin = 0, bestMax = 0;
+                for (int axis = 0; axis < 3; axis++) {
+                    int cutMin = min[axis], cutMax = max[axis];
+                    if (block[axis] < terrainMin[axis]) cutMax = terrainMin[axis] - 1;
+                    else if (block[axis] > terrainMax[axis]) cutMin = terrainMax[axis] + 1;
+                    else continue;
+
+                    long volume = cutMax - cutMin + 1L;
+                    for (int other = 0; other < 3; other++) if (other != axis) volume *= max[other] - min[other] + 1L;
+                    if (volume > bestVolume) {
+                        bestVolume = volume;
+                        bestAxis = axis;
+                        bestMin = cutMin;
+                        bestMax = cutMax;
+                    }
+                }
+                min[bestAxis] = bestMin;
+                max[bestAxis] = bestMax;
+            }
+
+            return new SafeBox(world, min[0], min[1], min[2], max[0], max[1], max[2]);
+        }
+
+        boolean contains(@NotNull UUID world, int x, int y, int z) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ && this.world.equals(world);
+        }
+
+        boolean intersects(@NotNull UUID world, int minX, int minZ, int maxX, int maxZ) {
+            return minX <= this.maxX && maxX >= this.minX && minZ <= this.maxZ && maxZ >= this.minZ && this.world.equals(world);
+        }
+    }
+
 }
@@ -31,6 +31,8 @@ public final class EntityMoveListener extends ToggleableListener {
     // Fire enter/leave events if the entity is carrying a player.
     @EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
     public void onEntityMove(EntityMoveEvent event) {
+        // Most moving entities are mobs without riders, so they're filtered before looking for passengers.
+        if (!EnterLeaveListener.isPlayerCarrier(event.getEntity())) return;
         Location from = event.getFrom(), to = event.getTo();
         EnterLeaveListener.handlePassengerCarrier(event.getEntity(), from, to);
     }
@@ -65,6 +65,15 @@ public final class MountListener implements Listener {
         }
     }
 
+    // Keeping track of the entities carrying players, so moves of other entities are ignored.
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMountMonitor(EntityMountEvent event) {
+        Entity entity = event.getEntity();
+        if (entity instanceof Player || EnterLeaveListener.isPlayerCarrier(entity)) {
+            EnterLeaveListener.addPlayerCarrier(event.getMount());
+        }
+    }
+
     @EventHandler
     public void onDismount(EntityDismountEvent event) {
         if (!enterLeaveEvents.get()) return;
@@ -77,4 +86,10 @@ public final class MountListener implements Listener {
             player.teleport(from);
         }
     }
+
+    // Keeping track of the entities carrying players, so entities left without players are no longer handled.
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDismountMonitor(EntityDismountEvent event) {
+        EnterLeaveListener.removePlayerCarrier(event.getDismounted(), event.getEntity());
+    }
 }
@@ -33,6 +33,7 @@ import com.epicnicity322.terrainer.core.Terrainer;
 import com.epicnicity322.terrainer.core.flag.Flag;
 import com.epicnicity322.terrainer.core.flag.Flags;
 import com.epicnicity322.terrainer.core.location.Coordinate;
+import com.epicnicity322.terrainer.core.protection.DecisionCache;
 import com.epicnicity322.terrainer.core.protection.Protections;
 import com.epicnicity322.terrainer.core.terrain.Terrain;
 import net.md_5.bungee.api.ChatMessageType;
@@ -310,6 +311,12 @@ public final class ProtectionsListener extends Protections<Player, CommandSender
         }
     }
 
+    // The protection decisions of players that left are no longer needed.
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        DecisionCache.forget(event.getPlayer().getUniqueId());
+    }
+
     @EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
     public void onBlockBreak(BlockBreakEvent event) {
         Block block = event.getBlock();
@@ -130,11 +130,10 @@ public final class CommandUtil {
                 foundTerrains.add(TerrainManager.terrainByID(id));
             } else {
                 // Finding terrain by name. The ones the player is not allowed to find are ignored.
-                for (Terrain t : TerrainManager.allTerrains()) {
-                    if (!t.name().equals(terrainName)) continue;
-                    if (foundTerrains == null) foundTerrains = new ArrayList<>();
-                    foundTerrains.add(t);
-                }
+                foundTerrains = TerrainManager.terrainsNamed(terrainName);
+                // The name index ignores colours, but the name must match exactly.
+                foundTerrains.removeIf(t -> !t.name().equals(terrainName));
+                if (foundTerrains.isEmpty()) foundTerrains = null;
             }
         }
 
@@ -325,8 +324,13 @@ public final class CommandUtil {
         if ((permissionOthers == null || !sender.hasPermission(permissionOthers)) && sender instanceof Player player) {
             UUID playerId = player.getUniqueId();
 
-            for (Terrain terrain : TerrainManager.allTerrains()) {
-                if (playerId.equals(terrain.owner()) || (allowModerators && terrain.moderators().view().contains(playerId))) {
+            for (Terrain terrain : TerrainManager.terrainsNamedStartingWith(playerId, currentArgument)) {
+                completions.add(completionPrefix + ChatColor.stripColor(terrain.name()));
+            }
+            if (allowModerators) {
+                // Players moderate few terrains, so the ones they're associated with are filtered instead.
+                for (Terrain terrain : TerrainManager.associatedTerrains(playerId)) {
+                    if (playerId.equals(terrain.owner()) || !terrain.moderators().view().contains(playerId)) continue;
                     String name = ChatColor.stripColor(terrain.name());
                     if (name.startsWith(currentArgument)) completions.add(completionPrefix + name);
                 }
@@ -334,11 +338,9 @@ public final class CommandUtil {
         } else {
             boolean ignoreWorldTerrains = permissionWorld == null || !sender.hasPermission(permissionWorld);
 
-            for (Terrain terrain : TerrainManager.allTerrains()) {
+            for (Terrain terrain : TerrainManager.terrainsNamedStartingWith(null, currentArgument)) {
                 if (ignoreWorldTerrains && terrain instanceof WorldTerrain) continue;
-
-                String name = ChatColor.stripColor(terrain.name());
-                if (name.startsWith(currentArgument)) completions.add(completionPrefix + name);
+                completions.add(completionPrefix + ChatColor.stripColor(terrain.name()));
             }
         }
     }
@@ -278,12 +278,39 @@ public final class Configurations {
               # Creature Spawn Event is responsible for handling Mob Spawn and Spawner Spawn flags. Disabling it can
               #improve performance, but at a cost of losing those flags.
               Disable Creature Spawn Event: false
+              # If enabled, the Piston, Block From To and Creature Spawn events are only listened to while any terrain
+              #has the flags handled by them set. Listeners are registered and unregistered automatically as flags
+              #change, so servers where these flags are unused don't pay for the events.
+              Register Listeners By Flag Usage: false
               # If enabled, players will be able to enter terrains where the ENTER flag is denied, provided there is a
               #higher-priority terrain at the same location with the ENTER flag allowed.
               # By default, this option is disabled, preventing players moving from a terrain where ENTER is allowed
               #into one where it is prohibited. This will also affect FLIGHT and GLIDE.
               Allow Higher Priority Entrances: false
             
+            # Results of PlaceholderAPI placeholders can be cached, so scoreboards, tab lists and holograms refreshing
+            #placeholders for many players don't calculate them from scratch every time.
+            Placeholder Cache:
+              Enabled: true
+              # The time in milliseconds a result is kept before being calculated again.
+              Time To Live: 1000
+              # The time in milliseconds the results of specific placeholders are kept, instead of the time above.
+              Placeholder Time To Live:
+                top-associated-terrains: 10000
+                top-used-blocks: 10000
+                top-used-claims: 10000
+              # Whether results are discarded as soon as any terrain is created, deleted or changed.
+              Invalidate On Terrain Change: true
+              # Expensive placeholders that are calculated in the background once their result expires. The previous
+              #result is shown while the new one is calculated. Placeholders that only use terrain data are calculated
+              #asynchronously, the others are calculated in the server thread.
+              Async Refresh:
+              - 'associated-terrains'
+              - 'top-associated-terrains'
+              - 'top-used-blocks'
+              - 'top-used-claims'
+              - 'used-blocks'
+            
             Input:
               # Whether an anvil should be used to get inputs from the player. If disabled, the input will be get from chat.
               Anvil GUI:
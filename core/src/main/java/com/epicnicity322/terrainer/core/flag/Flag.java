@@ -111,6 +111,14 @@ public class Flag<T> {
     private final @NotNull Function<@NotNull String, @NotNull T> transformer;
     private final @NotNull Function<@NotNull T, @NotNull String> formatter;
     @NotNull T defaultValue;
+    /**
+     * The position of this flag in {@link Flags#ordinals()}, assigned when the flag is registered.
+     */
+    volatile int ordinal = -1;
+    /**
+     * The bit of this flag in the boolean bitsets of terrains, assigned when the flag is registered.
+     */
+    volatile int booleanOrdinal = -1;
 
     /**
      * Creates a flag to be used in terrains as an identifier, transformer and formatter of data.
@@ -381,6 +389,28 @@ public class Flag<T> {
         return formatter;
     }
 
+    /**
+     * The index of this flag among the registered flags, used by terrains to store flag data in arrays. Ordinals are
+     * assigned in order of registration and are not persisted, so they may change between restarts.
+     *
+     * @return The ordinal of this flag, or -1 if this flag instance was never registered.
+     * @see Flags#registerFlag(Flag, String, String, String, Object)
+     */
+    public int ordinal() {
+        return ordinal;
+    }
+
+    /**
+     * The index of this flag among the registered boolean flags, used by terrains to store boolean flag data in
+     * bitsets. Only the first 64 registered flags of {@link Boolean} type have a boolean ordinal.
+     *
+     * @return The bit of this flag in bitsets, or -1 if this flag is not stored in bitsets.
+     * @see #ordinal()
+     */
+    public int booleanOrdinal() {
+        return booleanOrdinal;
+    }
+
     /**
      * The ID to be used in commands and permissions.
      *
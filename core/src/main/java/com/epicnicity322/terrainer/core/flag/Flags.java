@@ -357,6 +357,12 @@ public final class Flags {
             OUTSIDE_PROJECTILES, PISTONS, PLANT, PLANT_GROW, POTIONS, PREPARE, PRESSURE_PLATES, PROJECTILES, PVP,
             SHOW_BORDERS, SIGN_CLICK, SIGN_EDIT, SPAWNERS, SPONGES, TILL, TRAMPLE, VULNERABILITY));
     private static final @NotNull Set<Flag<?>> unmodifiableValues = Collections.unmodifiableSet(values);
+    private static volatile @NotNull Flag<?> @NotNull [] ordinals = new Flag<?>[0];
+    private static int booleanOrdinals = 0;
+
+    static {
+        for (Flag<?> flag : values) assignOrdinal(flag);
+    }
 
     private Flags() {
     }
@@ -400,6 +406,16 @@ public final class Flags {
         return registerFlag(flag, flag.id(), "", "WHITE_BANNER", null);
     }
 
+    /**
+     * The registered flags indexed by their {@link Flag#ordinal()}.
+     *
+     * @return A copy of the array of registered flags.
+     */
+    @ApiStatus.Internal
+    public static @NotNull Flag<?> @NotNull [] ordinals() {
+        return ordinals.clone();
+    }
+
     /**
      * Registers a new flag into {@link #values()}. A registered flag can have its value set by the player using the
      * Flag Management GUI or a command.
@@ -419,6 +435,10 @@ public final class Flags {
      *     <li><code>{@link Flag#id()} + ".Default"</code></li>
      *     <li><code>{@link Flag#id()} + ".Define Value"</code></li>
      * </ul>
+     * <p>
+     * The flag is assigned the next {@link Flag#ordinal()}, and the next {@link Flag#booleanOrdinal()} if it's a boolean
+     * flag. Registering a flag with the ID of an already registered
+     * flag keeps the previous instance and its ordinal.
      *
      * @param flag               The flag to register.
      * @param defaultDisplayName The display name this flag will have in messages and the Flag Management GUI.
@@ -430,7 +450,7 @@ public final class Flags {
      */
     @Contract("_,_,_,_,_ -> param1")
     public static synchronized <T> @NotNull Flag<T> registerFlag(@NotNull Flag<T> flag, @NotNull String defaultDisplayName, @NotNull String defaultLore, @NotNull String defaultMaterial, @Nullable T defineValue) {
-        values.add(flag);
+        if (values.add(flag)) assignOrdinal(flag);
         if (Configurations.FLAGS.config().contains(flag.id())) return flag;
 
         try {
@@ -466,6 +486,15 @@ public final class Flags {
         return flag;
     }
 
+    private static void assignOrdinal(@NotNull Flag<?> flag) {
+        Flag<?>[] ordinals = Arrays.copyOf(Flags.ordinals, Flags.ordinals.length + 1);
+        ordinals[ordinals.length - 1] = flag;
+        // Publishing the array before the ordinals, so flags are never seen with an ordinal out of bounds.
+        Flags.ordinals = ordinals;
+        if (flag.dataType() == Boolean.class && booleanOrdinals < Long.SIZE) flag.booleanOrdinal = booleanOrdinals++;
+        flag.ordinal = ordinals.length - 1;
+    }
+
     /**
      * Looks for a flag that has an {@link Flag#id()} or {@link Flag#commandFriendlyId()} matching the provided value.
      *
@@ -0,0 +1,142 @@
+/*
+ * Terrainer - A minecraft terrain claiming protection plugin.
+ * Copyright (C) 2026 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.terrainer.core.location;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An unmodifiable set of all chunks within a rectangle of chunk coordinates, inclusive.
+ * <p>
+ * Only the bounds are stored: {@link Chunk} instances are created lazily while iterating, and {@link #contains(Object)}
+ * and {@link #size()} are computed from the bounds.
+ */
+public final class ChunkRange extends AbstractSet<Chunk> {
+    private final int minX;
+    private final int minZ;
+    private final int maxX;
+    private final int maxZ;
+
+    /**
+     * Creates a range with all chunks between the min and max chunk coordinates, inclusive.
+     *
+     * @throws IllegalArgumentException If a min coordinate is greater than its max coordinate.
+     */
+    public ChunkRange(int minX, int minZ, int maxX, int maxZ) {
+        if (minX > maxX || minZ > maxZ) throw new IllegalArgumentException("Min chunk coordinates must not be greater than max chunk coordinates.");
+        this.minX = minX;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxZ = maxZ;
+    }
+
+    public int minX() {
+        return minX;
+    }
+
+    public int minZ() {
+        return minZ;
+    }
+
+    public int maxX() {
+        return maxX;
+    }
+
+    public int maxZ() {
+        return maxZ;
+    }
+
+    /**
+     * @return The exact amount of chunks in this range, which may be greater than {@link #size()}.
+     */
+    public long chunkAmount() {
+        return (maxX - (long) minX + 1L) * (maxZ - (long) minZ + 1L);
+    }
+
+    /**
+     * @param chunkX The X coordinate of the chunk.
+     * @param chunkZ The Z coordinate of the chunk.
+     * @return Whether the chunk is within this range.
+     */
+    public boolean contains(int chunkX, int chunkZ) {
+        return chunkX >= minX && chunkX <= maxX && chunkZ >= minZ && chunkZ <= maxZ;
+    }
+
+    @Override
+    public boolean contains(@Nullable Object o) {
+        return o instanceof Chunk chunk && contains(chunk.x(), chunk.z());
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(chunkAmount(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public @NotNull Iterator<Chunk> iterator() {
+        return new Iterator<>() {
+            private long x = minX;
+            private long z = minZ;
+
+            @Override
+            public boolean hasNext() {
+                return x <= maxX;
+            }
+
+            @Override
+            public Chunk next() {
+                if (x > maxX) throw new NoSuchElementException();
+                Chunk chunk = new Chunk((int) x, (int) z);
+                if (++z > maxZ) {
+                    z = minZ;
+                    x++;
+                }
+                return chunk;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (o == this) return true;
+        if (o instanceof ChunkRange range) {
+            return minX == range.minX && minZ == range.minZ && maxX == range.maxX && maxZ == range.maxZ;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "ChunkRange{" + "minX=" + minX + ", minZ=" + minZ + ", maxX=" + maxX + ", maxZ=" + maxZ + '}';
+    }
+}
@@ -36,6 +36,11 @@ public interface IAssociatedTerrainsAmountPlaceholder<O, P extends O> extends Pl
     @Nullable
     default String formatPlaceholder(@Nullable O player, @NotNull String params) {
         UUID id = player == null ? null : uuid(player);
-        return Long.toString(TerrainManager.allTerrains().stream().filter(t -> IAssociatedTerrainsPlaceholder.hasAnyRelations(id, t)).count());
+        return Long.toString(id == null ? TerrainManager.allTerrains().size() : TerrainManager.associatedTerrains(id).size());
+    }
+
+    @Override
+    default boolean usesOnlyTerrainData() {
+        return true;
     }
 }
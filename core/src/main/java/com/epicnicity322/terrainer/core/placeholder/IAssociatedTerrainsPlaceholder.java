@@ -43,6 +43,11 @@ public interface IAssociatedTerrainsPlaceholder<O, P extends O> extends Placehol
     @Nullable
     default String formatPlaceholder(@Nullable O player, @NotNull String params) {
         UUID id = player == null ? null : uuid(player);
-        return TerrainerUtil.listToString(TerrainManager.allTerrains().stream().filter(t -> hasAnyRelations(id, t)).toList(), Terrain::name);
+        return TerrainerUtil.listToString(id == null ? TerrainManager.allTerrains() : TerrainManager.associatedTerrains(id), Terrain::name);
+    }
+
+    @Override
+    default boolean usesOnlyTerrainData() {
+        return true;
     }
 }
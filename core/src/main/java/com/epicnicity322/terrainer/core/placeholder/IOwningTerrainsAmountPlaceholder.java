@@ -23,7 +23,6 @@ import com.epicnicity322.terrainer.core.terrain.TerrainManager;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Objects;
 import java.util.UUID;
 
 public interface IOwningTerrainsAmountPlaceholder<O, P extends O> extends PlaceholderFormatter<O, P> {
@@ -37,6 +36,11 @@ public interface IOwningTerrainsAmountPlaceholder<O, P extends O> extends Placeh
     @Nullable
     default String formatPlaceholder(@Nullable O player, @NotNull String params) {
         UUID id = player == null ? null : uuid(player);
-        return Long.toString(TerrainManager.allTerrains().stream().filter(t -> Objects.equals(id, t.owner())).count());
+        return Long.toString(TerrainManager.terrainsOfCount(id));
+    }
+
+    @Override
+    default boolean usesOnlyTerrainData() {
+        return true;
     }
 }
@@ -25,7 +25,6 @@ import com.epicnicity322.terrainer.core.util.TerrainerUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Objects;
 import java.util.UUID;
 
 public interface IOwningTerrainsPlaceholder<O, P extends O> extends PlaceholderFormatter<O, P> {
@@ -39,6 +38,11 @@ public interface IOwningTerrainsPlaceholder<O, P extends O> extends PlaceholderF
     @Nullable
     default String formatPlaceholder(@Nullable O player, @NotNull String params) {
         UUID id = player == null ? null : uuid(player);
-        return TerrainerUtil.listToString(TerrainManager.allTerrains().stream().filter(t -> Objects.equals(id, t.owner())).toList(), Terrain::name);
+        return TerrainerUtil.listToString(TerrainManager.terrainsOf(id), Terrain::name);
+    }
+
+    @Override
+    default boolean usesOnlyTerrainData() {
+        return true;
     }
 }
@@ -20,23 +20,14 @@ package com.epicnicity322.terrainer.core.placeholder;
 
 import com.epicnicity322.terrainer.core.Terrainer;
 import com.epicnicity322.terrainer.core.placeholder.formatter.PriorityPlaceholderFormatter;
-import com.epicnicity322.terrainer.core.terrain.Terrain;
 import com.epicnicity322.terrainer.core.terrain.TerrainManager;
 import com.epicnicity322.terrainer.core.util.PlayerUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Comparator;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
-import java.util.function.Function;
 
 public interface ITopAssociatedTerrainsPlaceholder<O, P extends O> extends PriorityPlaceholderFormatter<O, P> {
-    static @NotNull Optional<UUID> getTop(int topRank, Function<UUID, Long> scoreGetter) {
-        return TerrainManager.allTerrains().stream().map(Terrain::owner).filter(Objects::nonNull).distinct().sorted(Comparator.comparingLong(scoreGetter::apply).reversed()).skip(Math.max(topRank - 1, 0)).findFirst();
-    }
-
     @Override
     default @NotNull String name() {
         return "top-associated-terrains";
@@ -57,7 +48,7 @@ public interface ITopAssociatedTerrainsPlaceholder<O, P extends O> extends Prior
     @Nullable
     default String formatPlaceholder(@Nullable O player, @NotNull String params, int priority) {
         PlayerUtil<P, ? super P> playerUtil = playerUtil();
-        return getTop(priority, uuid -> TerrainManager.allTerrains().stream().filter(t -> IAssociatedTerrainsPlaceholder.hasAnyRelations(uuid, t)).count()).map(playerUtil::ownerName).orElseGet(() -> Terrainer.lang().get("Placeholder Values.No One Top"));
+        return Optional.ofNullable(TerrainManager.topAssociatedTerrains(priority)).map(playerUtil::ownerName).orElseGet(() -> Terrainer.lang().get("Placeholder Values.No One Top"));
     }
 
     @Override
@@ -25,6 +25,7 @@ import com.epicnicity322.terrainer.core.util.PlayerUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Optional;
 import java.util.UUID;
 
 public interface ITopUsedBlocksPlaceholder<O, P extends O> extends PerWorldRankPlaceholderFormatter<O, P> {
@@ -52,7 +53,7 @@ public interface ITopUsedBlocksPlaceholder<O, P extends O> extends PerWorldRankP
         }
 
         PlayerUtil<P, ? super P> util = playerUtil();
-        return ITopAssociatedTerrainsPlaceholder.getTop(position, p -> util.claimedBlocks(p, world)).map(util::ownerName).orElseGet(() -> Terrainer.lang().get("Placeholder Values.No One Top"));
+        return Optional.ofNullable(util.topClaimedBlocks(position, world)).map(util::ownerName).orElseGet(() -> Terrainer.lang().get("Placeholder Values.No One Top"));
     }
 
     @Override
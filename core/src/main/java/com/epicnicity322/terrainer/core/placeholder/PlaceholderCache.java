@@ -0,0 +1,170 @@
+/*
+ * Terrainer - A minecraft terrain claiming protection plugin.
+ * Copyright (C) 2024 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.terrainer.core.placeholder;
+
+import com.epicnicity322.terrainer.core.Terrainer;
+import com.epicnicity322.terrainer.core.terrain.TerrainManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A cache of the results of placeholders, so plugins requesting the same placeholder for many viewers on every refresh
+ * don't have the value calculated from scratch every time.
+ * <p>
+ * Results are kept for a time to live, which can be set per placeholder, and optionally until a terrain is added,
+ * removed or changed (see {@link TerrainManager#epoch()}). Results that don't depend on the player who requested them
+ * are shared by every requester.
+ * <p>
+ * Placeholders set to refresh in the background have their expired values served while the new value is calculated.
+ * The new value is calculated in an async task if the placeholder only uses terrain data, otherwise in a task in the
+ * server thread.
+ */
+public final class PlaceholderCache {
+    /**
+     * When this amount of results is reached, the cache is cleared to not grow indefinitely.
+     */
+    private static final int MAX_RESULTS = 1 << 14;
+    private static final @NotNull ConcurrentHashMap<Key, Result> results = new ConcurrentHashMap<>();
+    private static final @NotNull LongAdder hits = new LongAdder();
+    private static final @NotNull LongAdder misses = new LongAdder();
+
+    private static volatile boolean enabled = true;
+    private static volatile long timeToLive = 1000;
+    private static volatile @NotNull Map<String, Long> placeholderTimesToLive = Map.of();
+    private static volatile boolean invalidateOnTerrainChange = true;
+    private static volatile @NotNull Set<String> asyncRefresh = Set.of();
+
+    private PlaceholderCache() {
+    }
+
+    /**
+     * Sets the options of the cache and clears every cached result.
+     *
+     * @param enabled                   Whether results should be cached.
+     * @param timeToLive                The time in milliseconds results are kept.
+     * @param placeholderTimesToLive    The time in milliseconds results are kept for specific placeholders, by name.
+     * @param invalidateOnTerrainChange Whether results should be discarded once terrains change.
+     * @param asyncRefresh              The names of the placeholders that should be refreshed in the background.
+     */
+    public static void setOptions(boolean enabled, long timeToLive, @NotNull Map<String, Long> placeholderTimesToLive, boolean invalidateOnTerrainChange, @NotNull Set<String> asyncRefresh) {
+        PlaceholderCache.enabled = enabled;
+        PlaceholderCache.timeToLive = timeToLive;
+        PlaceholderCache.placeholderTimesToLive = Map.copyOf(placeholderTimesToLive);
+        PlaceholderCache.invalidateOnTerrainChange = invalidateOnTerrainChange;
+        PlaceholderCache.asyncRefresh = Set.copyOf(asyncRefresh);
+        results.clear();
+    }
+
+    /**
+     * Gets the cached result of the placeholder, or calculates it if it's not cached or expired.
+     *
+     * @param placeholder The name of the placeholder.
+     * @param requester   The player who requested the placeholder, or null if the result doesn't depend on who
+     *                    requested it, so it's shared by every requester.
+     * @param params      The parameters of the placeholder, which identify the player, terrain or world it's about.
+     * @param asyncSafe   Whether the calculator only uses terrain data, so it can run outside the server thread.
+     * @param calculator  The function that calculates the placeholder's value.
+     * @return The value of the placeholder.
+     */
+    public static @Nullable String get(@NotNull String placeholder, @Nullable UUID requester, @NotNull String params, boolean asyncSafe, @NotNull Supplier<@Nullable String> calculator) {
+        if (!enabled) return calculator.get();
+
+        var key = new Key(placeholder, requester, params);
+        long now = System.currentTimeMillis();
+        long epoch = invalidateOnTerrainChange ? TerrainManager.epoch() : 0;
+        Result result = results.get(key);
+
+        if (result != null) {
+            if (now < result.expiry && result.epoch == epoch) {
+                hits.increment();
+                return result.value;
+            }
+            if (asyncRefresh.contains(placeholder)) {
+                hits.increment();
+                // Only one task refreshes the result, other requests get the stale value in the meantime.
+                if (result.refreshing.compareAndSet(false, true)) {
+                    Runnable refresh = () -> {
+                        try {
+                            calculate(key, epoch, calculator);
+                        } finally {
+                            result.refreshing.set(false);
+                        }
+                    };
+                    // Calculators that use the server's API must run in the server thread.
+                    if (asyncSafe) Terrainer.taskFactory().async().delayed(0, task -> refresh.run());
+                    else Terrainer.taskFactory().global().delayed(0, task -> refresh.run());
+                }
+                return result.value;
+            }
+        }
+
+        misses.increment();
+        return calculate(key, epoch, calculator);
+    }
+
+    private static @Nullable String calculate(@NotNull Key key, long epoch, @NotNull Supplier<@Nullable String> calculator) {
+        String value = calculator.get();
+        if (results.size() >= MAX_RESULTS) results.clear();
+        long timeToLive = placeholderTimesToLive.getOrDefault(key.placeholder, PlaceholderCache.timeToLive);
+        results.put(key, new Result(value, System.currentTimeMillis() + timeToLive, epoch));
+        return value;
+    }
+
+    public static void clear() {
+        results.clear();
+    }
+
+    /**
+     * @return The amount of requests that were answered with a cached result.
+     */
+    public static long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The amount of requests that had the result calculated.
+     */
+    public static long misses() {
+        return misses.sum();
+    }
+
+    private record Key(@NotNull String placeholder, @Nullable UUID requester, @NotNull String params) {
+    }
+
+    private static final class Result {
+        private final @Nullable String value;
+        private final long expiry;
+        private final long epoch;
+        private final @NotNull AtomicBoolean refreshing = new AtomicBoolean(false);
+
+        private Result(@Nullable String value, long expiry, long epoch) {
+            this.value = value;
+            this.expiry = expiry;
+            this.epoch = epoch;
+        }
+    }
+}
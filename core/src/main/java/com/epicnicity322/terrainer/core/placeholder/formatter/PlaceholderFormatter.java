@@ -45,6 +45,14 @@ public interface PlaceholderFormatter<O, P extends O> {
         return true;
     }
 
+    /**
+     * Whether this placeholder is calculated only from terrain data and the UUID of the player, without using the
+     * server's API, so it can be calculated outside the server thread.
+     */
+    default boolean usesOnlyTerrainData() {
+        return false;
+    }
+
     default @NotNull String suggestedSuffix() {
         return "";
     }
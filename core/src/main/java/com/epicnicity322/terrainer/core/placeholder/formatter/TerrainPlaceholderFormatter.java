@@ -55,7 +55,7 @@ public interface TerrainPlaceholderFormatter<O, P extends O> extends PriorityPla
         } catch (IllegalArgumentException e) {
             // Getting terrain by name.
             String finalTerrain = terrain;
-            return TerrainManager.allTerrains().stream()
+            return TerrainManager.terrainsNamed(finalTerrain).stream()
                     .filter(t -> t.name().equals(finalTerrain))
                     .filter(t -> t.priority() <= priority)
                     .filter(t -> terrainFilter(t, player, params))
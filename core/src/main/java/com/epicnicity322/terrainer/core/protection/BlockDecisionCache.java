@@ -0,0 +1,126 @@
+/*
+ * Terrainer - A minecraft terrain claiming protection plugin.
+ * Copyright (C) 2024 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.terrainer.core.protection;
+
+import com.epicnicity322.terrainer.core.flag.Flag;
+import com.epicnicity322.terrainer.core.terrain.TerrainManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache of the decisions of protections triggered by blocks, like liquids flowing, dispensers dispensing and pistons
+ * pushing. Farms and flows trigger these at the same few positions every tick, so the decisions of each pair of
+ * positions are kept instead of looking up the terrains at both positions every time.
+ * <p>
+ * The cache has a fixed amount of slots addressed by the hash of the positions and flags, and a decision replaces the
+ * one in its slot. Decisions are stamped with the {@link TerrainManager#epoch()}, so they're ignored once any terrain
+ * is added, removed or changed. Changes that don't touch terrains, like reloading the configurations, must
+ * {@link #clear()} the cache.
+ * <p>
+ * No player is involved in these protections, so the decisions never depend on permissions.
+ */
+public final class BlockDecisionCache {
+    /**
+     * A decision of {@link Protections#handleBlockFromTo(UUID, int, int, int, int, int, int, Flag, Flag)}.
+     */
+    static final int FROM_TO = 0;
+    /**
+     * A decision of {@link Protections#handleOutsideAction(UUID, int, int, int, int, int, int, Flag)}.
+     */
+    static final int OUTSIDE_ACTION = 1;
+    /**
+     * A decision of a block moved or changed by a source block, as in
+     * {@link Protections#handleOutsideBlockProtection(UUID, int, int, int, java.util.List, boolean, Flag, Flag)}.
+     */
+    static final int OUTSIDE_BLOCK = 2;
+    /**
+     * The amount of decisions kept. Must be a power of two.
+     */
+    private static final int SLOTS = 1 << 12;
+    private static final @Nullable Decision @NotNull [] decisions = new Decision[SLOTS];
+    private static final @NotNull LongAdder hits = new LongAdder();
+    private static final @NotNull LongAdder misses = new LongAdder();
+
+    private BlockDecisionCache() {
+    }
+
+    /**
+     * Gets the cached decision of the positions and flags.
+     *
+     * @return The decision, or null if it's not cached or terrains changed since it was cached.
+     */
+    static @Nullable Boolean get(int kind, @NotNull UUID world, int x, int y, int z, int fromX, int fromY, int fromZ, @Nullable Flag<Boolean> flagInside, @NotNull Flag<Boolean> flagOutside, long epoch) {
+        long to = DecisionCache.pack(x, y, z), from = DecisionCache.pack(fromX, fromY, fromZ);
+        Decision decision = decisions[slot(kind, to, from, flagInside, flagOutside)];
+
+        if (decision != null && decision.epoch == epoch && decision.to == to && decision.from == from && decision.kind == kind && decision.world.equals(world) && decision.flagOutside.equals(flagOutside) && Objects.equals(decision.flagInside, flagInside)) {
+            hits.increment();
+            return decision.allowed;
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches the decision of the positions and flags, replacing the decision in its slot.
+     */
+    static void put(int kind, @NotNull UUID world, int x, int y, int z, int fromX, int fromY, int fromZ, @Nullable Flag<Boolean> flagInside, @NotNull Flag<Boolean> flagOutside, long epoch, boolean allowed) {
+        long to = DecisionCache.pack(x, y, z), from = DecisionCache.pack(fromX, fromY, fromZ);
+        // Decisions are immutable, so they can be replaced and read by multiple threads without locking.
+        decisions[slot(kind, to, from, flagInside, flagOutside)] = new Decision(kind, world, to, from, flagInside, flagOutside, epoch, allowed);
+    }
+
+    private static int slot(int kind, long to, long from, @Nullable Flag<Boolean> flagInside, @NotNull Flag<Boolean> flagOutside) {
+        long hash = to * 0x9E3779B97F4A7C15L + from;
+        hash = hash * 0x9E3779B97F4A7C15L + (31L * Objects.hashCode(flagInside) + flagOutside.hashCode()) * 31L + kind;
+        hash *= 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 52) & (SLOTS - 1);
+    }
+
+    /**
+     * Discards every decision, for when they might've been made with outdated configurations.
+     */
+    public static void clear() {
+        Arrays.fill(decisions, null);
+    }
+
+    /**
+     * @return The amount of decisions that were answered from the cache.
+     */
+    public static long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The amount of decisions that had to be resolved.
+     */
+    public static long misses() {
+        return misses.sum();
+    }
+
+    private record Decision(int kind, @NotNull UUID world, long to, long from, @Nullable Flag<Boolean> flagInside,
+                            @NotNull Flag<Boolean> flagOutside, long epoch, boolean allowed) {
+    }
+}
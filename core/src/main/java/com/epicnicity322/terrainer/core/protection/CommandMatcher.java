@@ -0,0 +1,176 @@
+/*
+ * Terrainer - A minecraft terrain claiming protection plugin.
+ * Copyright (C) 2024 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.terrainer.core.protection;
+
+import com.epicnicity322.terrainer.core.flag.Flags;
+import com.epicnicity322.terrainer.core.terrain.TerrainManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The commands of a {@link Flags#COMMAND_BLACKLIST} compiled in a prefix tree, so a command is matched in a single pass
+ * over its characters instead of testing a pattern for every entry of the list.
+ * <p>
+ * A command matches an entry when it starts with the entry, and a word boundary follows the entry, the same as the
+ * pattern {@code entry\b.*}. The entry {@code *} turns the list into a whitelist.
+ * <p>
+ * Matchers are cached in a direct mapped table by the identity of the collections set in the flags, and are discarded
+ * once any terrain is changed, as stated by {@link TerrainManager#epoch()}. Looking up a cached matcher allocates
+ * nothing.
+ */
+final class CommandMatcher {
+    /**
+     * The amount of slots in the cache. Must be a power of two.
+     */
+    private static final int SLOTS = 1 << 8;
+    /**
+     * Matchers are immutable once constructed, so they are safely published through their final fields without locks.
+     */
+    private static final @Nullable CommandMatcher @NotNull [] matchers = new CommandMatcher[SLOTS];
+
+    private final @NotNull Collection<?> @NotNull [] commandLists;
+    private final long epoch;
+    private final @NotNull Node root = new Node();
+    private final boolean whitelist;
+
+    /**
+     * Compiles the command lists in a prefix tree, without caching the matcher.
+     *
+     * @param commandLists The command lists of terrains with the same priority.
+     * @param epoch        The terrain epoch the lists were found at.
+     */
+    CommandMatcher(@NotNull List<? extends Collection<String>> commandLists, long epoch) {
+        this.commandLists = commandLists.toArray(new Collection<?>[0]);
+        this.epoch = epoch;
+        boolean whitelist = false;
+
+        for (Collection<String> commands : commandLists) {
+            for (String command : commands) {
+                if (command.equals("*")) {
+                    whitelist = true;
+                    continue;
+                }
+                command = command.toLowerCase(Locale.ROOT);
+                Node node = root;
+                for (int i = 0; i < command.length(); i++) node = node.childOrCreate(command.charAt(i));
+                node.end = true;
+            }
+        }
+
+        this.whitelist = whitelist;
+    }
+
+    /**
+     * Gets the matcher of the command lists of terrains with the same priority, merged in a single prefix tree.
+     *
+     * @param commandLists The command lists, as given by
+     *                     {@link TerrainManager#applyToCollectionsFlagDataAt(com.epicnicity322.terrainer.core.flag.Flag, java.util.UUID, java.util.UUID, int, int, int, boolean, java.util.function.Function)}.
+     * @return The cached matcher of the lists, or null if there are no lists.
+     */
+    static @Nullable CommandMatcher of(@NotNull List<? extends Collection<String>> commandLists) {
+        int size = commandLists.size();
+        if (size == 0) return null;
+
+        int hash = 1;
+        for (int i = 0; i < size; i++) hash = 31 * hash + System.identityHashCode(commandLists.get(i));
+        int slot = (hash ^ (hash >>> 16)) & (SLOTS - 1);
+
+        long epoch = TerrainManager.epoch();
+        CommandMatcher matcher = matchers[slot];
+        if (matcher != null && matcher.epoch == epoch && matcher.compiledFrom(commandLists)) return matcher;
+
+        matcher = new CommandMatcher(commandLists, epoch);
+        matchers[slot] = matcher;
+        return matcher;
+    }
+
+    /**
+     * Whether this matcher was compiled from the same collections, compared by identity.
+     */
+    private boolean compiledFrom(@NotNull List<? extends Collection<String>> commandLists) {
+        if (this.commandLists.length != commandLists.size()) return false;
+        for (int i = 0; i < this.commandLists.length; i++) if (this.commandLists[i] != commandLists.get(i)) return false;
+        return true;
+    }
+
+    /**
+     * @return Whether the lists contained the entry {@code *}, meaning only the commands in the lists are allowed.
+     */
+    boolean whitelist() {
+        return whitelist;
+    }
+
+    /**
+     * Tests whether the command starts with any of the entries, followed by a word boundary.
+     *
+     * @param command The command, in lower case.
+     * @return Whether the command matched an entry.
+     */
+    boolean matches(@NotNull String command) {
+        Node node = root;
+        int length = command.length();
+
+        for (int i = 0; ; i++) {
+            if (node.end && isBoundary(command, i)) return true;
+            if (i == length) return false;
+            node = node.child(command.charAt(i));
+            if (node == null) return false;
+        }
+    }
+
+    /**
+     * Whether there's a word boundary before the character at the index, as defined by {@code \b} in patterns.
+     */
+    private static boolean isBoundary(@NotNull String command, int index) {
+        boolean wordBefore = index > 0 && isWordChar(command.charAt(index - 1));
+        boolean wordAfter = index < command.length() && isWordChar(command.charAt(index));
+        return wordBefore != wordAfter;
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static final class Node {
+        private char @NotNull [] chars = new char[0];
+        private @NotNull Node @NotNull [] children = new Node[0];
+        private boolean end = false;
+
+        private @Nullable Node child(char c) {
+            for (int i = 0; i < chars.length; i++) if (chars[i] == c) return children[i];
+            return null;
+        }
+
+        private @NotNull Node childOrCreate(char c) {
+            Node child = child(c);
+            if (child != null) return child;
+            child = new Node();
+            chars = Arrays.copyOf(chars, chars.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            chars[chars.length - 1] = c;
+            children[children.length - 1] = child;
+            return child;
+        }
+    }
+}
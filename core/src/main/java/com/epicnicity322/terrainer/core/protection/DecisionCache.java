@@ -0,0 +1,170 @@
+/*
+ * Terrainer - A minecraft terrain claiming protection plugin.
+ * Copyright (C) 2024 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.terrainer.core.protection;
+
+import com.epicnicity322.terrainer.core.flag.Flag;
+import com.epicnicity322.terrainer.core.terrain.TerrainManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache of the latest protection decisions of each player, so actions repeated on the same blocks, like mining a vein
+ * or clicking a door, don't resolve the flag at the location every time.
+ * <p>
+ * Each player has a fixed amount of slots, addressed by block position and flag. Decisions are stamped with the
+ * {@link TerrainManager#epoch()}, so they're discarded once any terrain is added, removed or changed. Changes that
+ * don't touch terrains, like reloading the configurations, must {@link #clear()} the cache.
+ * <p>
+ * Only the flags at the location are cached. Checks that depend on the player's permissions, like the bypass
+ * permission of the flag, must be made before looking up the cache, so permission changes take effect right away.
+ */
+public final class DecisionCache {
+    /**
+     * The amount of decisions kept for each player. Must be a power of two.
+     */
+    private static final int SLOTS = 64;
+    /**
+     * When this amount of players is reached, the cache is cleared to not grow indefinitely.
+     */
+    private static final int MAX_PLAYERS = 1 << 12;
+    private static final @NotNull ConcurrentHashMap<UUID, Decisions> decisions = new ConcurrentHashMap<>();
+    private static final @NotNull LongAdder hits = new LongAdder();
+    private static final @NotNull LongAdder misses = new LongAdder();
+
+    private DecisionCache() {
+    }
+
+    /**
+     * Gets the cached decision of {@link TerrainManager#isFlagAllowedAt(Flag, UUID, UUID, int, int, int)}, or resolves
+     * it if it's not cached.
+     *
+     * @param flag   The flag to be tested at the location.
+     * @param player The UUID of the player.
+     * @param world  The UUID of the world where the location resides.
+     * @param x      The X coordinate of the block.
+     * @param y      The Y coordinate of the block.
+     * @param z      The Z coordinate of the block.
+     * @return {@code true} if the flag is allowed at the specified location; {@code false} otherwise.
+     */
+    public static boolean isFlagAllowedAt(@NotNull Flag<Boolean> flag, @NotNull UUID player, @NotNull UUID world, int x, int y, int z) {
+        // Flags set nowhere in the world are not worth a slot.
+        if (TerrainManager.isFlagAlwaysAllowed(flag, world)) return true;
+
+        long epoch = TerrainManager.epoch();
+        long position = pack(x, y, z);
+        Decisions playerDecisions = decisions.get(player);
+
+        if (playerDecisions == null) {
+            if (decisions.size() >= MAX_PLAYERS) decisions.clear();
+            playerDecisions = decisions.computeIfAbsent(player, k -> new Decisions());
+        }
+
+        int slot = slot(position, flag);
+
+        synchronized (playerDecisions) {
+            if (playerDecisions.epoch != epoch || !world.equals(playerDecisions.world)) {
+                playerDecisions.reset(world, epoch);
+            } else if (position == playerDecisions.positions[slot] && flag.equals(playerDecisions.flags[slot])) {
+                hits.increment();
+                return playerDecisions.allowed[slot];
+            }
+        }
+
+        misses.increment();
+        boolean allowed = TerrainManager.isFlagAllowedAt(flag, player, world, x, y, z);
+
+        synchronized (playerDecisions) {
+            // The decision is not stored if terrains changed or the player changed worlds while it was resolved.
+            if (playerDecisions.epoch == epoch && world.equals(playerDecisions.world)) {
+                playerDecisions.positions[slot] = position;
+                playerDecisions.flags[slot] = flag;
+                playerDecisions.allowed[slot] = allowed;
+            }
+        }
+        return allowed;
+    }
+
+    /**
+     * Packs the coordinates of a block in a long, with 26 bits for X and Z and 12 bits for Y.
+     */
+    static long pack(int x, int y, int z) {
+        return ((x & 0x3FFFFFFL) << 38) | ((z & 0x3FFFFFFL) << 12) | (y & 0xFFFL);
+    }
+
+    private static int slot(long position, @NotNull Flag<Boolean> flag) {
+        long hash = (position ^ flag.hashCode()) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 58) & (SLOTS - 1);
+    }
+
+    /**
+     * Discards the decisions of a player, for when they leave the server.
+     *
+     * @param player The UUID of the player.
+     */
+    public static void forget(@NotNull UUID player) {
+        decisions.remove(player);
+    }
+
+    /**
+     * Discards the decisions of every player, for when they might've been made with outdated configurations.
+     */
+    public static void clear() {
+        decisions.clear();
+    }
+
+    /**
+     * @return The amount of decisions that were answered from the cache.
+     */
+    public static long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The amount of decisions that had to be resolved.
+     */
+    public static long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The amount of players with decisions cached. Each player uses a fixed amount of memory.
+     */
+    public static int size() {
+        return decisions.size();
+    }
+
+    private static final class Decisions {
+        private final long @NotNull [] positions = new long[SLOTS];
+        private final @Nullable Flag<?> @NotNull [] flags = new Flag<?>[SLOTS];
+        private final boolean @NotNull [] allowed = new boolean[SLOTS];
+        private @Nullable UUID world;
+        private long epoch;
+
+        private void reset(@NotNull UUID world, long epoch) {
+            this.world = world;
+            this.epoch = epoch;
+            Arrays.fill(flags, null);
+        }
+    }
+}
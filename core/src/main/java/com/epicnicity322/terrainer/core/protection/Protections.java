@@ -33,7 +33,6 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.function.Function;
-import java.util.regex.Pattern;
 
 /**
  * An abstract class used for checking protections on the server's events.
@@ -139,8 +138,9 @@ public abstract class Protections<P extends R, R, B, I, E> {
     protected abstract void terrainMessage(@NotNull Terrain terrain, @NotNull P player, @NotNull String location, @NotNull String message);
 
     public boolean handleProtection(@NotNull P player, @NotNull UUID world, int x, int y, int z, @NotNull Flag<Boolean> flag, boolean message) {
+        // Permissions are not cached, so they're checked before the decision cache.
         if (playerUtil.hasPermission(player, flag.bypassPermission())) return true;
-        boolean allow = TerrainManager.isFlagAllowedAt(flag, playerUtil.playerUUID(player), world, x, y, z);
+        boolean allow = DecisionCache.isFlagAllowedAt(flag, playerUtil.playerUUID(player), world, x, y, z);
         if (!allow && message) lang.send(player, lang.get("Protections." + flag.id()));
         return allow;
     }
@@ -148,6 +148,8 @@ public abstract class Protections<P extends R, R, B, I, E> {
     public boolean handleProtection(@NotNull P player, @NotNull UUID world, int x, int y, int z, @NotNull Flag<Boolean> flag1, @NotNull Flag<Boolean> flag2) {
         if (playerUtil.hasPermission(player, flag1.bypassPermission()) && playerUtil.hasPermission(player, flag2.bypassPermission()))
             return true;
+        if (TerrainManager.isFlagAlwaysAllowed(flag1, world) && TerrainManager.isFlagAlwaysAllowed(flag2, world))
+            return true;
         Set<Terrain> terrains = TerrainManager.terrainsAt(world, x, y, z);
         boolean state1Found = false;
         boolean state2Found = false;
@@ -200,104 +202,89 @@ public abstract class Protections<P extends R, R, B, I, E> {
     }
 
     public boolean handleProtection(@NotNull UUID world, int x, int y, int z, @NotNull Flag<Boolean> flag1, @NotNull Flag<Boolean> flag2) {
-        Set<Terrain> terrains = TerrainManager.terrainsAt(world, x, y, z);
+        // The states with the highest priorities are looked up independently. If either one is false, return false.
+        return TerrainManager.isFlagAllowedAt(flag1, world, x, y, z) && TerrainManager.isFlagAllowedAt(flag2, world, x, y, z);
+    }
 
-        boolean state1Found = false;
-        boolean state2Found = false;
+    public boolean handleBlockFromTo(@NotNull UUID world, int x, int y, int z, int fromX, int fromY, int fromZ, @NotNull Flag<Boolean> flagInside, @NotNull Flag<Boolean> flagOutside) {
+        // Flags set nowhere in the world are allowed everywhere.
+        if (TerrainManager.isFlagAlwaysAllowed(flagInside, world) && TerrainManager.isFlagAlwaysAllowed(flagOutside, world))
+            return true;
 
-        for (Terrain terrain : terrains) {
-            // We're looking for the states with the highest priorities. If either one is false, return false.
+        long epoch = TerrainManager.epoch();
+        Boolean cached = BlockDecisionCache.get(BlockDecisionCache.FROM_TO, world, x, y, z, fromX, fromY, fromZ, flagInside, flagOutside, epoch);
+        if (cached != null) return cached;
 
-            if (!state1Found) {
-                Boolean state1 = terrain.flags().getData(flag1);
+        // Highest priority wins. Always return false if flagInside is false.
+        // flagOutside is false, return false only if the from coordinate is not within.
+        boolean allowed = TerrainManager.isFlagAllowedAt(flagInside, world, x, y, z) && isOutsideActionAllowed(world, x, y, z, fromX, fromY, fromZ, flagOutside);
+        BlockDecisionCache.put(BlockDecisionCache.FROM_TO, world, x, y, z, fromX, fromY, fromZ, flagInside, flagOutside, epoch, allowed);
+        return allowed;
+    }
 
-                if (state1 != null) {
-                    if (!state1) return false;
-                    state1Found = true;
-                }
-            }
-            if (!state2Found) {
-                Boolean state2 = terrain.flags().getData(flag2);
+    public boolean handleOutsideAction(@NotNull UUID world, int x, int y, int z, int fromX, int fromY, int fromZ, @NotNull Flag<Boolean> flag) {
+        if (TerrainManager.isFlagAlwaysAllowed(flag, world)) return true;
 
-                if (state2 != null) {
-                    if (!state2) return false;
-                    state2Found = true;
-                }
-            }
+        long epoch = TerrainManager.epoch();
+        Boolean cached = BlockDecisionCache.get(BlockDecisionCache.OUTSIDE_ACTION, world, x, y, z, fromX, fromY, fromZ, null, flag, epoch);
+        if (cached != null) return cached;
 
-            // Both states were found and both were set to true.
-            if (state1Found && state2Found) break;
-        }
-        return true;
+        boolean allowed = isOutsideActionAllowed(world, x, y, z, fromX, fromY, fromZ, flag);
+        BlockDecisionCache.put(BlockDecisionCache.OUTSIDE_ACTION, world, x, y, z, fromX, fromY, fromZ, null, flag, epoch, allowed);
+        return allowed;
     }
 
-    public boolean handleBlockFromTo(@NotNull UUID world, int x, int y, int z, int fromX, int fromY, int fromZ, @NotNull Flag<Boolean> flagInside, @NotNull Flag<Boolean> flagOutside) {
-        Set<Terrain> terrains = TerrainManager.terrainsAt(world, x, y, z);
-
-        // Highest priority wins.
-        boolean flagInsideFound = false;
-        boolean flagOutsideFound = false;
-
-        for (Terrain terrain : terrains) {
-            if (!flagInsideFound) {
-                Boolean state = terrain.flags().getData(flagInside);
-                if (state != null) {
-                    flagInsideFound = true;
-                    // Always return false if flagInside is false. If flagInside is true and flagOutside was already tested, then return true.
-                    if (!state) return false;
-                    else if (flagOutsideFound) return true;
-                }
-            }
-            if (!flagOutsideFound) {
-                Boolean state = terrain.flags().getData(flagOutside);
-                if (state != null) {
-                    flagOutsideFound = true;
-                    if (state) {
-                        if (flagInsideFound) return true;
-                    } else {
-                        // flagOutside is false, return false only if the from coordinate is not within, otherwise continue checking for flagInside.
-                        if (!terrain.isWithin(fromX, fromY, fromZ)) {
-                            return false;
-                        } else if (flagInsideFound) return true;
-                    }
-                }
-            }
-        }
-
-        return true;
+    private static boolean isOutsideActionAllowed(@NotNull UUID world, int x, int y, int z, int fromX, int fromY, int fromZ, @NotNull Flag<Boolean> flag) {
+        Map.Entry<Terrain, Boolean> found = TerrainManager.highestPriorityTerrainWithFlagAt(flag, world, x, y, z);
+        return found == null || found.getValue() || found.getKey().isWithin(fromX, fromY, fromZ);
     }
 
-    public boolean handleOutsideAction(@NotNull UUID world, int x, int y, int z, int fromX, int fromY, int fromZ, @NotNull Flag<Boolean> flag) {
-        Collection<Terrain> terrains = TerrainManager.terrainsAt(world, x, y, z);
+    /**
+     * Whether a block can be changed by a source block, as in
+     * {@link #handleOutsideBlockProtection(UUID, int, int, int, List, boolean, Flag, Flag)}. The source block is not
+     * tested.
+     */
+    private static boolean isOutsideBlockAllowed(@NotNull UUID world, int x, int y, int z, int blockX, int blockY, int blockZ, @NotNull Flag<Boolean> flagInside, @NotNull Flag<Boolean> flagOutside) {
+        if (TerrainManager.isFlagAlwaysAllowed(flagInside, world) && TerrainManager.isFlagAlwaysAllowed(flagOutside, world))
+            return true;
 
-        for (Terrain terrain : terrains) {
-            Boolean state = terrain.flags().getData(flag);
-            if (state == null) continue;
-            if (!state && !terrain.isWithin(fromX, fromY, fromZ)) return false;
-            break;
-        }
+        long epoch = TerrainManager.epoch();
+        Boolean cached = BlockDecisionCache.get(BlockDecisionCache.OUTSIDE_BLOCK, world, blockX, blockY, blockZ, x, y, z, flagInside, flagOutside, epoch);
+        if (cached != null) return cached;
 
-        return true;
+        // If source is coming from outside the terrain and flagInside or flagOutside is false, then disallow.
+        Map.Entry<Terrain, Boolean> found = TerrainManager.highestPriorityTerrainWithFlagAt(flagOutside, world, blockX, blockY, blockZ);
+        boolean allowed = found == null || found.getKey().isWithin(x, y, z) || (found.getValue() && !Boolean.FALSE.equals(found.getKey().flags().getData(flagInside)));
+        BlockDecisionCache.put(BlockDecisionCache.OUTSIDE_BLOCK, world, blockX, blockY, blockZ, x, y, z, flagInside, flagOutside, epoch, allowed);
+        return allowed;
     }
 
     public boolean handleOutsideBlockProtection(@NotNull UUID world, int x, int y, int z, @NotNull List<B> blocks, boolean removeFromList, @NotNull Flag<Boolean> flagInside, @NotNull Flag<Boolean> flagOutside) {
+        if (TerrainManager.isFlagAlwaysAllowed(flagInside, world) && TerrainManager.isFlagAlwaysAllowed(flagOutside, world))
+            return true;
+
         // Checking the flag for the source block.
         boolean sourceBlock = handleProtection(world, x, y, z, flagInside);
         if (!sourceBlock) return false;
 
+        if (blocks.isEmpty()) return true;
+        List<Map.Entry<Terrain, Boolean>> foundTerrains = TerrainManager.highestPriorityTerrainsWithFlagAt(flagOutside, world, coordinates(blocks));
+
         // Checking terrains in each block, and if the source is coming out of a terrain and any of the flags are false, remove block from list.
         if (removeFromList) {
-            blocks.removeIf(block -> {
-                Map.Entry<Terrain, Boolean> foundTerrain = TerrainManager.highestPriorityTerrainWithFlagAt(flagOutside, world, x(block), y(block), z(block));
+            Iterator<B> blockIterator = blocks.iterator();
+
+            for (Map.Entry<Terrain, Boolean> foundTerrain : foundTerrains) {
+                blockIterator.next();
                 // If source is coming from outside the terrain and flagInside or flagOutside is false, then remove this block.
                 if (foundTerrain != null && !foundTerrain.getKey().isWithin(x, y, z)) {
-                    return !foundTerrain.getValue() || (Boolean.FALSE.equals(foundTerrain.getKey().flags().getData(flagInside)));
+                    if (!foundTerrain.getValue() || (Boolean.FALSE.equals(foundTerrain.getKey().flags().getData(flagInside)))) {
+                        blockIterator.remove();
+                    }
                 }
-                return false;
-            });
+            }
         } else {
-            for (B block : blocks) {
-                Map.Entry<Terrain, Boolean> foundTerrain = TerrainManager.highestPriorityTerrainWithFlagAt(flagOutside, world, x(block), y(block), z(block));
+            for (Map.Entry<Terrain, Boolean> foundTerrain : foundTerrains) {
                 // If source is coming from outside the terrain and flagInside or flagOutside is false, then break and disallow.
                 if (foundTerrain != null && !foundTerrain.getKey().isWithin(x, y, z)) {
                     if (!foundTerrain.getValue() || (Boolean.FALSE.equals(foundTerrain.getKey().flags().getData(flagInside)))) {
@@ -309,6 +296,21 @@ public abstract class Protections<P extends R, R, B, I, E> {
         return true;
     }
 
+    /**
+     * @return The X, Y and Z coordinates of each block in sequence, to be used in batch queries.
+     */
+    private int @NotNull [] coordinates(@NotNull Collection<B> blocks) {
+        int[] coordinates = new int[blocks.size() * 3];
+        int i = 0;
+
+        for (B block : blocks) {
+            coordinates[i++] = x(block);
+            coordinates[i++] = y(block);
+            coordinates[i++] = z(block);
+        }
+        return coordinates;
+    }
+
     private boolean checkPlayerRelationToRestOfTerrainsWithSamePriority(@NotNull P player, @NotNull Iterator<Terrain> terrains, int priority) {
         // Continue looping through terrains with same priority to see if player has relations to any of them.
         while (terrains.hasNext()) {
@@ -396,10 +398,17 @@ public abstract class Protections<P extends R, R, B, I, E> {
     public boolean portalCreate(@Nullable E entity, @NotNull List<B> blocks) {
         P player = entity == null ? null : entityOrShooterToPlayer(entity);
 
-        for (B block : blocks) {
-            if (player == null ? !handleProtection(world(block), x(block), y(block), z(block), Flags.BUILD) : !handleProtection(player, world(block), x(block), y(block), z(block), Flags.BUILD, true)) {
-                return false;
+        if (player == null) {
+            if (blocks.isEmpty()) return true;
+            // Portal blocks are all in the same world.
+            for (Map.Entry<Terrain, Boolean> foundTerrain : TerrainManager.highestPriorityTerrainsWithFlagAt(Flags.BUILD, world(blocks.get(0)), coordinates(blocks))) {
+                if (foundTerrain != null && !foundTerrain.getValue()) return false;
             }
+            return true;
+        }
+
+        for (B block : blocks) {
+            if (!handleProtection(player, world(block), x(block), y(block), z(block), Flags.BUILD, true)) return false;
         }
         return true;
     }
@@ -486,14 +495,11 @@ public abstract class Protections<P extends R, R, B, I, E> {
             P damagerPlayer = entityOrShooterToPlayer(damager);
 
             if (damagerPlayer != null) {
-                Set<Terrain> terrains = TerrainManager.terrainsAt(world, x, y, z);
+                Map.Entry<Terrain, Boolean> found = TerrainManager.highestPriorityTerrainWithFlagAt(Flags.PVP, world, x, y, z);
 
-                for (Terrain terrain : terrains) {
-                    Boolean state = terrain.flags().getData(Flags.PVP);
-                    if (state != null) {
-                        if (!state) lang.send(damagerPlayer, lang.get("Protections." + Flags.PVP.id()));
-                        return state;
-                    }
+                if (found != null) {
+                    if (!found.getValue()) lang.send(damagerPlayer, lang.get("Protections." + Flags.PVP.id()));
+                    return found.getValue();
                 }
             } else {
                 return handleProtection(world, x, y, z, Flags.VULNERABILITY);
@@ -572,17 +578,26 @@ public abstract class Protections<P extends R, R, B, I, E> {
     }
 
     public boolean pistonRetract(@NotNull UUID world, int x, int y, int z, @NotNull List<B> movedBlocks) {
-        return handleOutsideBlockProtection(world, x, y, z, movedBlocks, false, Flags.PISTONS, Flags.OUTSIDE_PISTONS);
-    }
+        // Pistons retract the same blocks in farms repeatedly, so each block is checked through the decision cache.
+        if (!handleProtection(world, x, y, z, Flags.PISTONS)) return false;
 
-    public boolean pistonExtend(@NotNull UUID world, @NotNull Collection<B> movedBlocks, @NotNull Function<B, B> relative) {
         for (B block : movedBlocks) {
-            B to = relative.apply(block);
-            if (!handleBlockFromTo(world, x(to), y(to), z(to), x(block), y(block), z(block), Flags.PISTONS, Flags.OUTSIDE_PISTONS)) {
+            if (!isOutsideBlockAllowed(world, x, y, z, x(block), y(block), z(block), Flags.PISTONS, Flags.OUTSIDE_PISTONS)) {
                 return false;
             }
         }
+        return true;
+    }
 
+    public boolean pistonExtend(@NotNull UUID world, @NotNull Collection<B> movedBlocks, @NotNull Function<B, B> relative) {
+        // Highest priority wins. Always disallow if PISTONS is false.
+        // OUTSIDE_PISTONS is false, disallow only if the moved block is not within.
+        for (B from : movedBlocks) {
+            B to = relative.apply(from);
+            if (!handleBlockFromTo(world, x(to), y(to), z(to), x(from), y(from), z(from), Flags.PISTONS, Flags.OUTSIDE_PISTONS)) {
+                return false;
+            }
+        }
         return true;
     }
 
@@ -622,27 +637,15 @@ public abstract class Protections<P extends R, R, B, I, E> {
     public boolean command(@NotNull UUID world, int x, int y, int z, @NotNull P player, @NotNull String command) {
         if (playerUtil.hasPermission(player, Flags.COMMAND_BLACKLIST.bypassPermission())) return true;
 
-        List<String> blockedCommands = TerrainManager.getCollectionFlagDataAt(Flags.COMMAND_BLACKLIST, playerUtil.playerUUID(player), world, x, y, z, true);
-        if (blockedCommands.isEmpty()) return true;
-
-        command = command.toLowerCase(Locale.ROOT);
-        boolean whitelist = blockedCommands.remove("*");
+        CommandMatcher matcher = TerrainManager.applyToCollectionsFlagDataAt(Flags.COMMAND_BLACKLIST, playerUtil.playerUUID(player), world, x, y, z, true, CommandMatcher::of);
+        if (matcher == null) return true;
 
-        if (whitelist) {
-            for (String whitelistedCmd : blockedCommands) {
-                if (command.matches(Pattern.quote(whitelistedCmd.toLowerCase(Locale.ROOT)) + "\\b.*")) return true;
-            }
+        // Whitelists allow only the matched commands, blacklists block them.
+        if (matcher.matches(command.toLowerCase(Locale.ROOT)) != matcher.whitelist()) {
             lang.send(player, lang.get("Protections." + Flags.COMMAND_BLACKLIST.id()));
             return false;
-        } else {
-            for (String blockedCmd : blockedCommands) {
-                if (command.matches(Pattern.quote(blockedCmd.toLowerCase(Locale.ROOT)) + "\\b.*")) {
-                    lang.send(player, lang.get("Protections." + Flags.COMMAND_BLACKLIST.id()));
-                    return false;
-                }
-            }
-            return true;
         }
+        return true;
     }
 
     public boolean terrainCanEnter(@NotNull P player, @NotNull Set<Terrain> enteredTerrains, @NotNull Set<Terrain> toTerrains, @NotNull TerrainEnterLeaveEvent.EnterLeaveReason reason) {
@@ -0,0 +1,257 @@
+/*
+ * Terrainer - A minecraft terrain claiming protection plugin.
+ * Copyright (C) 2026 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.terrainer.core.terrain;
+
+import com.epicnicity322.terrainer.core.location.Coordinate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Keeps the amount of blocks used by the terrains of each owner, per world, so block limits can be read without going
+ * through every terrain the owner has.
+ * <p>
+ * Two amounts are kept: the sum of the areas of the terrains, and the area of their union, where blocks covered by
+ * more than one terrain are counted once. The union is updated incrementally, since adding a footprint to a union adds
+ * its area minus the part of it that was already covered, and removing it subtracts the same. Only the owner's
+ * terrains intersecting the changed footprint are looked at to find the covered part.
+ * <p>
+ * {@link WorldTerrain}s are not taken into account.
+ */
+final class BlockUsage {
+    /**
+     * The footprints that were accounted for, by terrain ID.
+     */
+    private final @NotNull HashMap<UUID, Footprint> footprints = new HashMap<>();
+    private final @NotNull HashMap<Group, Usage> groups = new HashMap<>();
+    /**
+     * The usage of every world, by owner.
+     */
+    private final @NotNull HashMap<UUID, long[]> totals = new HashMap<>();
+
+    /**
+     * Accounts for the current owner, world and diagonals of the terrain, replacing what was accounted previously.
+     *
+     * @param terrain The terrain that was added or changed.
+     */
+    synchronized void update(@NotNull Terrain terrain) {
+        if (terrain instanceof WorldTerrain) return;
+        Footprint footprint = Footprint.of(terrain);
+        Footprint previous = footprints.put(terrain.id, footprint);
+
+        if (footprint.equals(previous)) return;
+        if (previous != null) remove(previous);
+        add(footprint);
+    }
+
+    synchronized void remove(@NotNull Terrain terrain) {
+        Footprint previous = footprints.remove(terrain.id);
+        if (previous != null) remove(previous);
+    }
+
+    /**
+     * Gets the amount of blocks used by the owner.
+     *
+     * @param owner    The owner of the terrains, null for CONSOLE.
+     * @param world    The world of the terrains, null for every world.
+     * @param nested   Whether blocks covered by more than one terrain are counted for every terrain.
+     * @param claiming A terrain to account for in place of the one with the same ID, regardless of its owner and world.
+     * @return The amount of blocks used.
+     */
+    synchronized long used(@Nullable UUID owner, @Nullable UUID world, boolean nested, @Nullable Terrain claiming) {
+        long[] usage;
+        if (world == null) {
+            usage = totals.get(owner);
+        } else {
+            Usage found = groups.get(new Group(owner, world));
+            usage = found == null ? null : found.amounts;
+        }
+        long used = usage == null ? 0 : usage[nested ? 0 : 1];
+
+        if (claiming == null || claiming instanceof WorldTerrain) return used;
+
+        Footprint previous = footprints.get(claiming.id);
+        if (previous != null && Objects.equals(previous.group.owner, owner) && (world == null || previous.group.world.equals(world))) {
+            used -= nested ? previous.area() : previous.area() - covered(previous, groups.get(previous.group));
+        }
+
+        Footprint footprint = Footprint.of(claiming);
+        Group group = new Group(owner, footprint.group.world);
+        footprint = new Footprint(claiming.id, group, footprint.minX, footprint.minZ, footprint.maxX, footprint.maxZ);
+        return used + (nested ? footprint.area() : footprint.area() - covered(footprint, groups.get(group)));
+    }
+
+    private void add(@NotNull Footprint footprint) {
+        Usage usage = groups.computeIfAbsent(footprint.group, k -> new Usage());
+        long area = footprint.area(), union = area - covered(footprint, usage);
+
+        usage.footprints.put(footprint.terrain, footprint);
+        usage.amounts[0] += area;
+        usage.amounts[1] += union;
+
+        long[] total = totals.computeIfAbsent(footprint.group.owner, k -> new long[2]);
+        total[0] += area;
+        total[1] += union;
+    }
+
+    private void remove(@NotNull Footprint footprint) {
+        Usage usage = groups.get(footprint.group);
+        if (usage == null || usage.footprints.remove(footprint.terrain) == null) return;
+        long area = footprint.area(), union = area - covered(footprint, usage);
+
+        if (usage.footprints.isEmpty()) groups.remove(footprint.group);
+        else {
+            usage.amounts[0] -= area;
+            usage.amounts[1] -= union;
+        }
+
+        long[] total = totals.get(footprint.group.owner);
+        if (total == null) return;
+        total[0] -= area;
+        total[1] -= union;
+        if (total[0] == 0 && total[1] == 0) totals.remove(footprint.group.owner);
+    }
+
+    /**
+     * Calculates the area of the footprint that is covered by the other footprints of the group.
+     *
+     * @param footprint The footprint to check.
+     * @param usage     The usage of the group, which may include the footprint itself.
+     * @return The amount of blocks of the footprint covered by other footprints.
+     */
+    private static long covered(@NotNull Footprint footprint, @Nullable Usage usage) {
+        if (usage == null) return 0;
+        int[] clipped = null;
+        int count = 0;
+
+        for (Footprint other : usage.footprints.values()) {
+            if (other.terrain.equals(footprint.terrain)) continue;
+            int minX = Math.max(footprint.minX, other.minX), maxX = Math.min(footprint.maxX, other.maxX);
+            if (minX >= maxX) continue;
+            int minZ = Math.max(footprint.minZ, other.minZ), maxZ = Math.min(footprint.maxZ, other.maxZ);
+            if (minZ >= maxZ) continue;
+            // Fully covered, no need to look further.
+            if (minX == footprint.minX && maxX == footprint.maxX && minZ == footprint.minZ && maxZ == footprint.maxZ) {
+                return footprint.area();
+            }
+
+            if (clipped == null) clipped = new int[16];
+            else if (clipped.length == count << 2) clipped = Arrays.copyOf(clipped, clipped.length << 1);
+            clipped[count << 2] = minX;
+            clipped[(count << 2) + 1] = minZ;
+            clipped[(count << 2) + 2] = maxX;
+            clipped[(count << 2) + 3] = maxZ;
+            count++;
+        }
+
+        if (count == 0) return 0;
+        if (count == 1) return (long) (clipped[2] - clipped[0]) * (clipped[3] - clipped[1]);
+        return unionArea(clipped, count);
+    }
+
+    /**
+     * Calculates the area of the union of rectangles with a sweep over the X axis, keeping the length covered on the Z
+     * axis in a segment tree.
+     *
+     * @param rectangles The rectangles, as sequences of min X, min Z, max X and max Z. Max coordinates are exclusive.
+     * @param count      The amount of rectangles.
+     * @return The area covered by the rectangles.
+     */
+    static long unionArea(int @NotNull [] rectangles, int count) {
+        int[] zs = new int[count << 1];
+        long[] events = new long[count << 1];
+
+        for (int i = 0; i < count; i++) {
+            zs[i << 1] = rectangles[(i << 2) + 1];
+            zs[(i << 1) + 1] = rectangles[(i << 2) + 3];
+            // Events are sorted by X, and carry the index of the rectangle and whether it starts or ends.
+            events[i << 1] = ((long) rectangles[i << 2] << 32) | ((long) i << 1);
+            events[(i << 1) + 1] = ((long) rectangles[(i << 2) + 2] << 32) | ((long) i << 1) | 1;
+        }
+
+        Arrays.sort(zs);
+        int distinct = 0;
+        for (int z : zs) if (distinct == 0 || zs[distinct - 1] != z) zs[distinct++] = z;
+        Arrays.sort(events);
+
+        int[] cover = new int[distinct << 2];
+        long[] length = new long[distinct << 2];
+        long area = 0;
+        int previousX = (int) (events[0] >> 32);
+
+        for (long event : events) {
+            int x = (int) (event >> 32);
+            area += length[1] * (x - previousX);
+            previousX = x;
+
+            int rectangle = (int) (event & 0xFFFFFFFFL) >>> 1;
+            int from = Arrays.binarySearch(zs, 0, distinct, rectangles[(rectangle << 2) + 1]);
+            int to = Arrays.binarySearch(zs, 0, distinct, rectangles[(rectangle << 2) + 3]);
+            update(cover, length, zs, 1, 0, distinct - 1, from, to, (event & 1) == 0 ? 1 : -1);
+        }
+
+        return area;
+    }
+
+    /**
+     * Adds the delta to the cover count of the elementary Z intervals between from and to, updating the covered lengths.
+     */
+    private static void update(int @NotNull [] cover, long @NotNull [] length, int @NotNull [] zs, int node, int low, int high, int from, int to, int delta) {
+        if (to <= low || high <= from) return;
+
+        if (from <= low && high <= to) {
+            cover[node] += delta;
+        } else {
+            int middle = (low + high) >>> 1;
+            update(cover, length, zs, node << 1, low, middle, from, to, delta);
+            update(cover, length, zs, (node << 1) | 1, middle, high, from, to, delta);
+        }
+
+        if (cover[node] > 0) length[node] = zs[high] - zs[low];
+        else if (high - low == 1) length[node] = 0;
+        else length[node] = length[node << 1] + length[(node << 1) | 1];
+    }
+
+    private record Group(@Nullable UUID owner, @NotNull UUID world) {
+    }
+
+    /**
+     * The rectangle a terrain covers on the X and Z axis. Max coordinates are exclusive.
+     */
+    private record Footprint(@NotNull UUID terrain, @NotNull Group group, int minX, int minZ, int maxX, int maxZ) {
+        static @NotNull Footprint of(@NotNull Terrain terrain) {
+            Coordinate min = terrain.minDiagonal(), max = terrain.maxDiagonal();
+            // MaxZ and MaxX offset by 1 to account for Minecraft coordinate system.
+            return new Footprint(terrain.id, new Group(terrain.owner(), terrain.world), (int) min.x(), (int) min.z(), (int) max.x() + 1, (int) max.z() + 1);
+        }
+
+        long area() {
+            return (long) (maxX - minX) * (maxZ - minZ);
+        }
+    }
+
+    private static final class Usage {
+        final @NotNull HashMap<UUID, Footprint> footprints = new HashMap<>(4);
+        /**
+         * The sum of the areas and the area of the union.
+         */
+        final long @NotNull [] amounts = new long[2];
+    }
+}
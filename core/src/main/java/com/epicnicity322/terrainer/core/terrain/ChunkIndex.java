@@ -0,0 +1,583 @@
+/*
+ * Terrainer - A minecraft terrain claiming protection plugin.
+ * Copyright (C) 2026 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.terrainer.core.terrain;
+
+import com.epicnicity322.terrainer.core.location.Chunk;
+import com.epicnicity322.terrainer.core.location.ChunkRange;
+import com.epicnicity322.terrainer.core.location.Coordinate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+/**
+ * The index of terrains of a single world, used by {@link TerrainManager} to find the terrains in a chunk.
+ * <p>
+ * Chunks are stored in an open addressing table keyed by their packed coordinates, so looking up a chunk does not
+ * allocate keys or hash the world's {@link UUID}. Terrains with more than {@link #LARGE_TERRAIN_CHUNK_AMOUNT} chunks are
+ * not fanned out to every chunk, instead they are held in the {@link #largeTerrains} tree. {@link WorldTerrain}s are
+ * the only terrains held in {@link #globalTerrains}.
+ * <p>
+ * Terrains indexed by chunk are also indexed by region of {@link #REGION_SIZE}x{@link #REGION_SIZE} chunks, so queries
+ * of large areas look up a few regions instead of every chunk in the area.
+ * <p>
+ * The terrains of each chunk are kept in immutable arrays sorted by {@link TerrainManager#PRIORITY_COMPARATOR}, which
+ * are replaced by a new copy whenever the chunk changes. This way, queries only have to filter the arrays in order.
+ * <p>
+ * Writes are synchronized, while reads are lock-free: every change to the table is published through the volatile
+ * {@link #table} field. After the change is published, the {@link #sections} overlapped by the terrain are invalidated.
+ */
+final class ChunkIndex {
+    static final @NotNull Terrain @NotNull [] EMPTY = new Terrain[0];
+    /**
+     * Terrains with more chunks than this are indexed by {@link #largeTerrains} instead of by chunk.
+     */
+    static final int LARGE_TERRAIN_CHUNK_AMOUNT = 1024;
+    /**
+     * The size in chunks of the side of a region. Must be a power of 2.
+     */
+    static final int REGION_SIZE = 32;
+    private static final int REGION_SHIFT = Integer.numberOfTrailingZeros(REGION_SIZE);
+    /**
+     * Areas with up to this amount of chunks are queried chunk by chunk, instead of by region.
+     */
+    private static final int CHUNK_QUERY_LIMIT = 64;
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * Marks a slot whose chunk was removed, so probing continues past it.
+     */
+    private static final @NotNull Entry REMOVED = new Entry(0, EMPTY);
+
+    final @NotNull UUID world;
+    /**
+     * Every terrain of this world, sorted by priority.
+     */
+    volatile @NotNull Terrain @NotNull [] terrains = EMPTY;
+    /**
+     * The {@link WorldTerrain}s that cover the whole world. Sorted by priority.
+     */
+    volatile @NotNull Terrain @NotNull [] globalTerrains = EMPTY;
+    /**
+     * Terrains that are too big to be indexed by chunk.
+     */
+    volatile @NotNull LargeTerrainTree largeTerrains = LargeTerrainTree.EMPTY;
+    /**
+     * The resolved flags of the sections of this world.
+     */
+    final @NotNull SectionFlagCache sections = new SectionFlagCache();
+    /**
+     * The amount of times each flag is set in the terrains of this world.
+     */
+    final @NotNull FlagUsage flagUsage = new FlagUsage();
+
+    /**
+     * The terrains indexed by chunk, by the key of each region they are in. Arrays are not sorted.
+     */
+    private final @NotNull ConcurrentHashMap<Long, Terrain[]> regions = new ConcurrentHashMap<>();
+    private volatile @Nullable Entry @NotNull [] table = new Entry[INITIAL_CAPACITY];
+    private int size = 0;
+    private int removed = 0;
+
+    ChunkIndex(@NotNull UUID world) {
+        this.world = world;
+    }
+
+    static long key(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Copies the sorted array with the terrain inserted in its priority position.
+     *
+     * @return The new array, or the same array if the terrain was already present.
+     */
+    private static @NotNull Terrain @NotNull [] insert(@NotNull Terrain @NotNull [] terrains, @NotNull Terrain terrain) {
+        for (Terrain t : terrains) if (t.equals(terrain)) return terrains;
+
+        int i = Arrays.binarySearch(terrains, terrain, TerrainManager.PRIORITY_COMPARATOR);
+        if (i < 0) i = -(i + 1);
+
+        Terrain[] newTerrains = new Terrain[terrains.length + 1];
+        System.arraycopy(terrains, 0, newTerrains, 0, i);
+        newTerrains[i] = terrain;
+        System.arraycopy(terrains, i, newTerrains, i + 1, terrains.length - i);
+        return newTerrains;
+    }
+
+    /**
+     * Copies the array without the terrain. The terrain is searched linearly, because its priority might have changed
+     * since it was inserted.
+     *
+     * @return The new array, or the same array if the terrain was not present.
+     */
+    private static @NotNull Terrain @NotNull [] delete(@NotNull Terrain @NotNull [] terrains, @NotNull Terrain terrain) {
+        for (int i = 0; i < terrains.length; i++) {
+            if (!terrains[i].equals(terrain)) continue;
+            if (terrains.length == 1) return EMPTY;
+
+            Terrain[] newTerrains = new Terrain[terrains.length - 1];
+            System.arraycopy(terrains, 0, newTerrains, 0, i);
+            System.arraycopy(terrains, i + 1, newTerrains, i, terrains.length - i - 1);
+            return newTerrains;
+        }
+        return terrains;
+    }
+
+    private static @NotNull Terrain @NotNull [] sorted(@NotNull Terrain @NotNull [] terrains) {
+        Terrain[] copy = terrains.clone();
+        Arrays.sort(copy, TerrainManager.PRIORITY_COMPARATOR);
+        return copy;
+    }
+
+    /**
+     * Gets the terrains registered in the chunk.
+     *
+     * @param chunkX The X coordinate of the chunk.
+     * @param chunkZ The Z coordinate of the chunk.
+     * @return The terrains in the chunk sorted by priority, or null if there are none. Must not be modified.
+     */
+    @NotNull Terrain @Nullable [] get(int chunkX, int chunkZ) {
+        long key = key(chunkX, chunkZ);
+        Entry[] table = this.table;
+        int mask = table.length - 1;
+
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            Entry entry = table[i];
+            if (entry == null) return null;
+            if (entry != REMOVED && entry.key == key) return entry.terrains;
+        }
+    }
+
+    /**
+     * Whether the {@link #globalTerrains} are the only terrains that can have the block column within. Most blocks of a
+     * world are not claimed, so this is checked before any other lookup: it takes a single probe of the chunk table and
+     * a bounds check of the {@link #largeTerrains} tree.
+     *
+     * @param x The X coordinate of the block.
+     * @param z The Z coordinate of the block.
+     * @return Whether no terrain is indexed in the block's chunk, and no large terrain can be at the block.
+     */
+    boolean onlyGlobalAt(int x, int z) {
+        return get(x >> 4, z >> 4) == null && !largeTerrains.mayIntersect(x, z, x, z);
+    }
+
+    /**
+     * Whether the {@link #globalTerrains} are the only terrains that can be in the chunk.
+     *
+     * @param chunkX The X coordinate of the chunk.
+     * @param chunkZ The Z coordinate of the chunk.
+     * @return Whether no terrain is indexed in the chunk, and no large terrain can intersect it.
+     */
+    boolean onlyGlobalAtChunk(int chunkX, int chunkZ) {
+        return get(chunkX, chunkZ) == null && !largeTerrains.mayIntersect(chunkX << 4, chunkZ << 4, (chunkX << 4) + 15, (chunkZ << 4) + 15);
+    }
+
+    /**
+     * Whether the terrain is too big to be indexed by chunk. Terrains with no chunks are extremely huge, because
+     * {@link Terrain#findChunks()} returns an empty set above {@link Terrain#MAX_CHUNK_AMOUNT}.
+     */
+    private static boolean isLarge(@NotNull Collection<Chunk> chunks) {
+        return chunks.isEmpty() || chunks.size() > LARGE_TERRAIN_CHUNK_AMOUNT;
+    }
+
+    /**
+     * Adds the terrain to {@link #terrains}, and to the chunks, {@link #largeTerrains} or {@link #globalTerrains}
+     * depending on its size.
+     *
+     * @param terrain The terrain to add.
+     * @param chunks  The chunks the terrain is in.
+     */
+    synchronized void add(@NotNull Terrain terrain, @NotNull Collection<Chunk> chunks) {
+        terrains = insert(terrains, terrain);
+
+        if (terrain instanceof WorldTerrain) {
+            globalTerrains = insert(globalTerrains, terrain);
+        } else if (isLarge(chunks)) {
+            largeTerrains = largeTerrains.with(terrain);
+        } else {
+            for (Chunk chunk : chunks) add(chunk.x(), chunk.z(), terrain);
+            this.table = table; // Publishing changes.
+            addToRegions(terrain, chunks);
+        }
+
+        invalidateSections(terrain);
+    }
+
+    /**
+     * Removes the terrain from {@link #terrains}, the chunks, {@link #largeTerrains} and {@link #globalTerrains}.
+     *
+     * @param terrain The terrain to remove.
+     * @param chunks  The chunks the terrain was in.
+     */
+    synchronized void remove(@NotNull Terrain terrain, @NotNull Collection<Chunk> chunks) {
+        terrains = delete(terrains, terrain);
+        globalTerrains = delete(globalTerrains, terrain);
+        largeTerrains = largeTerrains.without(terrain);
+
+        if (!isLarge(chunks)) {
+            for (Chunk chunk : chunks) remove(chunk.x(), chunk.z(), terrain);
+            if (removed > table.length >> 2) rehash();
+            else this.table = table; // Publishing changes.
+            removeFromRegions(terrain, chunks);
+        }
+
+        invalidateSections(chunks);
+    }
+
+    /**
+     * Moves the terrain from the previous chunks to the current chunks, touching only the chunks that changed.
+     *
+     * @param terrain  The terrain that had its chunks changed.
+     * @param previous The chunks the terrain was in.
+     * @param current  The chunks the terrain is in now.
+     */
+    synchronized void update(@NotNull Terrain terrain, @NotNull Collection<Chunk> previous, @NotNull Collection<Chunk> current) {
+        if (terrain instanceof WorldTerrain || isLarge(previous) || isLarge(current)) {
+            remove(terrain, previous);
+            add(terrain, current);
+            return;
+        }
+
+        if (previous instanceof ChunkRange previousRange && current instanceof ChunkRange currentRange) {
+            // Only the strips outside the intersection of the ranges are touched.
+            forEachOutside(previousRange, currentRange, (x, z) -> remove(x, z, terrain));
+            forEachOutside(currentRange, previousRange, (x, z) -> add(x, z, terrain));
+        } else {
+            for (Chunk chunk : previous) if (!current.contains(chunk)) remove(chunk.x(), chunk.z(), terrain);
+            for (Chunk chunk : current) if (!previous.contains(chunk)) add(chunk.x(), chunk.z(), terrain);
+        }
+
+        if (removed > table.length >> 2) rehash();
+        else this.table = table; // Publishing changes.
+
+        removeFromRegions(terrain, previous);
+        addToRegions(terrain, current);
+
+        invalidateSections(previous);
+        invalidateSections(terrain);
+    }
+
+    private void addToRegions(@NotNull Terrain terrain, @NotNull Collection<Chunk> chunks) {
+        forEachRegion(chunks, key -> regions.compute(key, (k, terrains) -> {
+            if (terrains == null) return new Terrain[]{terrain};
+            for (Terrain t : terrains) if (t.equals(terrain)) return terrains;
+            Terrain[] newTerrains = Arrays.copyOf(terrains, terrains.length + 1);
+            newTerrains[terrains.length] = terrain;
+            return newTerrains;
+        }));
+    }
+
+    private void removeFromRegions(@NotNull Terrain terrain, @NotNull Collection<Chunk> chunks) {
+        forEachRegion(chunks, key -> regions.computeIfPresent(key, (k, terrains) -> {
+            Terrain[] newTerrains = delete(terrains, terrain);
+            return newTerrains.length == 0 ? null : newTerrains;
+        }));
+    }
+
+    /**
+     * Calls the consumer for the key of every region within the bounds of the chunks.
+     */
+    private static void forEachRegion(@NotNull Collection<Chunk> chunks, @NotNull LongConsumer consumer) {
+        if (chunks.isEmpty()) return;
+        int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+
+        if (chunks instanceof ChunkRange range) {
+            minX = range.minX();
+            minZ = range.minZ();
+            maxX = range.maxX();
+            maxZ = range.maxZ();
+        } else {
+            for (Chunk chunk : chunks) {
+                minX = Math.min(minX, chunk.x());
+                minZ = Math.min(minZ, chunk.z());
+                maxX = Math.max(maxX, chunk.x());
+                maxZ = Math.max(maxZ, chunk.z());
+            }
+        }
+
+        for (int x = minX >> REGION_SHIFT; x <= maxX >> REGION_SHIFT; x++) {
+            for (int z = minZ >> REGION_SHIFT; z <= maxZ >> REGION_SHIFT; z++) consumer.accept(key(x, z));
+        }
+    }
+
+    /**
+     * Adds the terrains whose diagonals intersect the box to the set. {@link #globalTerrains} are not included.
+     * <p>
+     * Small areas are looked up chunk by chunk, larger areas region by region, and terrains too big to be indexed by
+     * chunk are found in the {@link #largeTerrains} tree.
+     *
+     * @param min  The minimum corner of the box.
+     * @param max  The maximum corner of the box.
+     * @param into The set to add the terrains to.
+     */
+    void collect(@NotNull Coordinate min, @NotNull Coordinate max, @NotNull Set<Terrain> into) {
+        int minChunkX = (int) min.x() >> 4, minChunkZ = (int) min.z() >> 4;
+        int maxChunkX = (int) max.x() >> 4, maxChunkZ = (int) max.z() >> 4;
+
+        if ((maxChunkX - (long) minChunkX + 1) * (maxChunkZ - (long) minChunkZ + 1) <= CHUNK_QUERY_LIMIT) {
+            for (int x = minChunkX; x <= maxChunkX; x++) {
+                for (int z = minChunkZ; z <= maxChunkZ; z++) {
+                    Terrain[] terrains = get(x, z);
+                    if (terrains != null) collectIntersecting(terrains, min, max, into);
+                }
+            }
+        } else {
+            int minRegionX = minChunkX >> REGION_SHIFT, minRegionZ = minChunkZ >> REGION_SHIFT;
+            int maxRegionX = maxChunkX >> REGION_SHIFT, maxRegionZ = maxChunkZ >> REGION_SHIFT;
+
+            // Picking whichever is smaller to iterate: the regions in the box or the regions with terrains.
+            if ((maxRegionX - (long) minRegionX + 1) * (maxRegionZ - (long) minRegionZ + 1) <= regions.size()) {
+                for (int x = minRegionX; x <= maxRegionX; x++) {
+                    for (int z = minRegionZ; z <= maxRegionZ; z++) {
+                        Terrain[] terrains = regions.get(key(x, z));
+                        if (terrains != null) collectIntersecting(terrains, min, max, into);
+                    }
+                }
+            } else {
+                for (Terrain[] terrains : regions.values()) collectIntersecting(terrains, min, max, into);
+            }
+        }
+
+        var largeTerrains = new ArrayList<Terrain>();
+        this.largeTerrains.collect((int) min.x(), (int) min.z(), (int) max.x(), (int) max.z(), largeTerrains);
+        collectIntersecting(largeTerrains.toArray(EMPTY), min, max, into);
+    }
+
+    private static void collectIntersecting(@NotNull Terrain @NotNull [] terrains, @NotNull Coordinate min, @NotNull Coordinate max, @NotNull Set<Terrain> into) {
+        for (Terrain terrain : terrains) {
+            Coordinate terrainMin = terrain.minDiagonal, terrainMax = terrain.maxDiagonal;
+
+            if (terrainMin.x() <= max.x() && terrainMax.x() >= min.x() && terrainMin.y() <= max.y() && terrainMax.y() >= min.y() && terrainMin.z() <= max.z() && terrainMax.z() >= min.z()) {
+                into.add(terrain);
+            }
+        }
+    }
+
+    /**
+     * Calls the consumer for every chunk in the range that is not in the excluded range.
+     */
+    private static void forEachOutside(@NotNull ChunkRange range, @NotNull ChunkRange excluded, @NotNull ChunkConsumer consumer) {
+        for (int x = range.minX(); x <= range.maxX(); x++) {
+            if (x < excluded.minX() || x > excluded.maxX()) {
+                for (int z = range.minZ(); z <= range.maxZ(); z++) consumer.accept(x, z);
+            } else {
+                for (int z = range.minZ(); z <= range.maxZ() && z < excluded.minZ(); z++) consumer.accept(x, z);
+                for (int z = Math.max(range.minZ(), excluded.maxZ() + 1); z <= range.maxZ(); z++) consumer.accept(x, z);
+            }
+        }
+    }
+
+    /**
+     * Sorts again the arrays the terrain is in, after its priority has changed.
+     *
+     * @param terrain The terrain that had its priority changed.
+     * @param chunks  The chunks the terrain is in.
+     */
+    synchronized void sort(@NotNull Terrain terrain, @NotNull Collection<Chunk> chunks) {
+        terrains = sorted(terrains);
+
+        if (terrain instanceof WorldTerrain) {
+            globalTerrains = sorted(globalTerrains);
+        } else if (!isLarge(chunks)) { // The large terrains tree is not sorted, results are sorted on query.
+            Entry[] table = this.table;
+            int mask = table.length - 1;
+
+            for (Chunk chunk : chunks) {
+                long key = key(chunk.x(), chunk.z());
+                Entry entry;
+
+                for (int i = hash(key) & mask; (entry = table[i]) != null; i = (i + 1) & mask) {
+                    if (entry == REMOVED || entry.key != key) continue;
+                    // Terrains alone in the chunk don't need sorting.
+                    if (entry.terrains.length > 1) table[i] = new Entry(key, sorted(entry.terrains));
+                    break;
+                }
+            }
+
+            this.table = table; // Publishing changes.
+        }
+
+        invalidateSections(terrain);
+    }
+
+    /**
+     * Invalidates the cached sections overlapped by the terrain's current diagonals.
+     *
+     * @param terrain The terrain that changed.
+     */
+    void invalidateSections(@NotNull Terrain terrain) {
+        Coordinate min = terrain.minDiagonal, max = terrain.maxDiagonal;
+        sections.invalidate((int) min.x() >> 4, (int) min.y() >> 4, (int) min.z() >> 4, (int) max.x() >> 4, (int) max.y() >> 4, (int) max.z() >> 4);
+    }
+
+    /**
+     * Invalidates the cached sections of the chunks, in every height. Empty chunks are from terrains too big to be
+     * indexed, so every section is invalidated.
+     */
+    private void invalidateSections(@NotNull Collection<Chunk> chunks) {
+        int minX = Integer.MIN_VALUE >> 4, minZ = Integer.MIN_VALUE >> 4, maxX = Integer.MAX_VALUE >> 4, maxZ = Integer.MAX_VALUE >> 4;
+
+        if (chunks instanceof ChunkRange range) {
+            minX = range.minX();
+            minZ = range.minZ();
+            maxX = range.maxX();
+            maxZ = range.maxZ();
+        } else if (!chunks.isEmpty()) {
+            minX = minZ = Integer.MAX_VALUE;
+            maxX = maxZ = Integer.MIN_VALUE;
+            for (Chunk chunk : chunks) {
+                minX = Math.min(minX, chunk.x());
+                minZ = Math.min(minZ, chunk.z());
+                maxX = Math.max(maxX, chunk.x());
+                maxZ = Math.max(maxZ, chunk.z());
+            }
+        }
+
+        sections.invalidate(minX, Integer.MIN_VALUE >> 4, minZ, maxX, Integer.MAX_VALUE >> 4, maxZ);
+    }
+
+    /**
+     * Finds the terrains covering the whole chunk section.
+     *
+     * @param chunkX   The X coordinate of the chunk.
+     * @param sectionY The Y coordinate of the section.
+     * @param chunkZ   The Z coordinate of the chunk.
+     * @return The terrains covering the section sorted by priority, or null if a terrain covers only part of the section.
+     */
+    @NotNull Terrain @Nullable [] coveringTerrains(int chunkX, int sectionY, int chunkZ) {
+        int minX = chunkX << 4, minY = sectionY << 4, minZ = chunkZ << 4;
+        int maxX = minX + 15, maxY = minY + 15, maxZ = minZ + 15;
+
+        Terrain[] chunkTerrains = get(chunkX, chunkZ);
+        if (chunkTerrains == null) chunkTerrains = EMPTY;
+        Terrain[] globalTerrains = this.globalTerrains;
+        var candidates = new ArrayList<Terrain>(chunkTerrains.length + globalTerrains.length + 2);
+
+        candidates.addAll(Arrays.asList(chunkTerrains));
+        candidates.addAll(Arrays.asList(globalTerrains));
+        largeTerrains.collect(minX, minZ, maxX, maxZ, candidates);
+
+        var covering = new ArrayList<Terrain>(candidates.size());
+
+        for (Terrain terrain : candidates) {
+            Coordinate min = terrain.minDiagonal, max = terrain.maxDiagonal;
+
+            if (!(min.x() <= maxX && max.x() >= minX && min.y() <= maxY && max.y() >= minY && min.z() <= maxZ && max.z() >= minZ)) {
+                continue;
+            }
+            // Only cuboid terrains are bounded by their diagonals, other shapes may cover only part of the section.
+            if (terrain instanceof WorldTerrain || (terrain.getClass() == Terrain.class && min.x() <= minX && max.x() >= maxX
+                    && min.y() <= minY && max.y() >= maxY && min.z() <= minZ && max.z() >= maxZ)) {
+                covering.add(terrain);
+            } else {
+                return null; // The section is at the edge of this terrain.
+            }
+        }
+
+        if (covering.isEmpty()) return EMPTY;
+        Terrain[] terrains = covering.toArray(new Terrain[0]);
+        Arrays.sort(terrains, TerrainManager.PRIORITY_COMPARATOR);
+        return terrains;
+    }
+
+    private void add(int chunkX, int chunkZ, @NotNull Terrain terrain) {
+        long key = key(chunkX, chunkZ);
+        Entry[] table = this.table;
+        int mask = table.length - 1;
+        int i = hash(key) & mask;
+        int free = -1;
+        Entry entry;
+
+        while ((entry = table[i]) != null) {
+            if (entry == REMOVED) {
+                if (free == -1) free = i;
+            } else if (entry.key == key) {
+                table[i] = new Entry(key, insert(entry.terrains, terrain));
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+
+        if (free == -1) free = i;
+        else removed--;
+
+        table[free] = new Entry(key, new Terrain[]{terrain});
+
+        // Keeping at least half of the table empty, so probing is short and always finds an empty slot.
+        if ((++size + removed) << 1 > table.length) rehash();
+    }
+
+    private void remove(int chunkX, int chunkZ, @NotNull Terrain terrain) {
+        long key = key(chunkX, chunkZ);
+        Entry[] table = this.table;
+        int mask = table.length - 1;
+        Entry entry;
+
+        for (int i = hash(key) & mask; (entry = table[i]) != null; i = (i + 1) & mask) {
+            if (entry == REMOVED || entry.key != key) continue;
+
+            Terrain[] terrains = delete(entry.terrains, terrain);
+            if (terrains.length == 0) {
+                table[i] = REMOVED;
+                size--;
+                removed++;
+            } else if (terrains != entry.terrains) {
+                table[i] = new Entry(key, terrains);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Copies the entries into a new table sized for the current amount of chunks, dropping removed slots. Readers keep
+     * using the old table until the new one is published.
+     */
+    private void rehash() {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < size << 2) capacity <<= 1;
+
+        Entry[] newTable = new Entry[capacity];
+        int mask = capacity - 1;
+
+        for (Entry entry : table) {
+            if (entry == null || entry == REMOVED) continue;
+            int i = hash(entry.key) & mask;
+            while (newTable[i] != null) i = (i + 1) & mask;
+            newTable[i] = entry;
+        }
+
+        removed = 0;
+        table = newTable;
+    }
+
+    @FunctionalInterface
+    private interface ChunkConsumer {
+        void accept(int chunkX, int chunkZ);
+    }
+
+    private record Entry(long key, @NotNull Terrain @NotNull [] terrains) {
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Terrainer - A minecraft terrain claiming protection plugin.
+ * Copyright (C) 2026 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.terrainer.core.terrain;
+
+import com.epicnicity322.terrainer.core.flag.Flag;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The amount of times each flag is set in the terrains of a world, including the flags of members, used by
+ * {@link TerrainManager} to resolve flags that are set nowhere in the world without looking up terrains.
+ * <p>
+ * Terrains that {@link Terrain#usesDefaultFlagValues()} answer the default value of flags they don't have set, so
+ * those are counted too: a flag set nowhere is only always allowed if its default is true, or if there are no terrains
+ * using default values in the world.
+ */
+final class FlagUsage {
+    /**
+     * The amount of times each flag is set, by flag ID. Flags set nowhere are not in the map.
+     */
+    private final @NotNull ConcurrentHashMap<String, Integer> counts = new ConcurrentHashMap<>();
+    private final @NotNull AtomicInteger defaultUsers = new AtomicInteger();
+
+    /**
+     * Counts the flags of a terrain that was registered.
+     */
+    void add(@NotNull Terrain terrain) {
+        if (terrain.usesDefaultFlagValues() && defaultUsers.incrementAndGet() == 1) {
+            TerrainManager.callOnFlagUsageChange();
+        }
+        forEachFlag(terrain, 1);
+    }
+
+    /**
+     * Discounts the flags of a terrain that was unregistered.
+     */
+    void remove(@NotNull Terrain terrain) {
+        if (terrain.usesDefaultFlagValues() && defaultUsers.decrementAndGet() == 0) {
+            TerrainManager.callOnFlagUsageChange();
+        }
+        forEachFlag(terrain, -1);
+    }
+
+    private void forEachFlag(@NotNull Terrain terrain, int delta) {
+        for (String flagID : terrain.flags().view().keySet()) update(flagID, delta);
+
+        HashMap<?, Terrain.FlagMap> memberFlags = terrain.memberFlags().map;
+        if (memberFlags == null) return;
+        for (Terrain.FlagMap flags : memberFlags.values()) {
+            for (String flagID : flags.view().keySet()) update(flagID, delta);
+        }
+    }
+
+    /**
+     * Changes the amount of times a flag is set in the world.
+     *
+     * @param flagID The ID of the flag that was set or unset.
+     * @param delta  1 if the flag was set, -1 if it was unset.
+     */
+    void update(@NotNull String flagID, int delta) {
+        boolean[] changed = new boolean[1];
+        counts.compute(flagID, (id, count) -> {
+            int newCount = (count == null ? 0 : count) + delta;
+            // The flag started or stopped being set in the world.
+            changed[0] = (count == null) != (newCount <= 0);
+            return newCount <= 0 ? null : newCount;
+        });
+        if (changed[0]) TerrainManager.callOnFlagUsageChange();
+    }
+
+    /**
+     * Whether the flag resolves to allowed in every block of the world, because no terrain has it set.
+     *
+     * @param flag The flag to test.
+     * @return Whether the flag is set nowhere and no terrain can answer a default value denying it.
+     */
+    boolean isAlwaysAllowed(@NotNull Flag<Boolean> flag) {
+        if (counts.containsKey(flag.id())) return false;
+        return flag.defaultValue() || defaultUsers.get() == 0;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Terrainer - A minecraft terrain claiming protection plugin.
+ * Copyright (C) 2026 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.terrainer.core.terrain;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * An immutable 2D R-tree of terrains that are too big to be indexed chunk by chunk in {@link ChunkIndex}.
+ * <p>
+ * The tree is bulk loaded with the Sort-Tile-Recursive algorithm using the terrains' diagonals as bounding boxes, and a
+ * new tree is built whenever a large terrain is added, removed or resized. Large terrains are few and rarely change, so
+ * rebuilding is cheap, while point queries only visit the branches containing the point.
+ */
+final class LargeTerrainTree {
+    static final @NotNull LargeTerrainTree EMPTY = new LargeTerrainTree(ChunkIndex.EMPTY);
+    private static final int NODE_CAPACITY = 8;
+
+    private final @NotNull Terrain @NotNull [] terrains;
+    private final @Nullable Node root;
+
+    private LargeTerrainTree(@NotNull Terrain @NotNull [] terrains) {
+        this.terrains = terrains;
+        this.root = terrains.length == 0 ? null : build(terrains);
+    }
+
+    private static @NotNull Node build(@NotNull Terrain @NotNull [] terrains) {
+        Object[] level = new Object[terrains.length];
+
+        for (int i = 0; i < terrains.length; i++) {
+            Terrain terrain = terrains[i];
+            level[i] = new Node((int) terrain.minDiagonal.x(), (int) terrain.minDiagonal.z(), (int) terrain.maxDiagonal.x(), (int) terrain.maxDiagonal.z(), new Object[]{terrain}, true);
+        }
+
+        // Packing leaves first, then packing nodes until only the root is left.
+        level = pack(level, true);
+        while (level.length > 1) level = pack(level, false);
+        return (Node) level[0];
+    }
+
+    private static @NotNull Object @NotNull [] pack(@NotNull Object @NotNull [] items, boolean leaves) {
+        int nodeAmount = (items.length + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int sliceAmount = (int) Math.ceil(Math.sqrt(nodeAmount));
+        int sliceSize = sliceAmount * NODE_CAPACITY;
+
+        // Sorting by center X, then each vertical slice by center Z.
+        Arrays.sort(items, Comparator.comparingLong(item -> (long) ((Node) item).minX + ((Node) item).maxX));
+        for (int i = 0; i < items.length; i += sliceSize) {
+            Arrays.sort(items, i, Math.min(i + sliceSize, items.length), Comparator.comparingLong(item -> (long) ((Node) item).minZ + ((Node) item).maxZ));
+        }
+
+        Object[] nodes = new Object[nodeAmount];
+
+        for (int n = 0; n < nodeAmount; n++) {
+            int start = n * NODE_CAPACITY;
+            int end = Math.min(start + NODE_CAPACITY, items.length);
+            int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+            Object[] children = new Object[end - start];
+
+            for (int i = start; i < end; i++) {
+                Node item = (Node) items[i];
+                minX = Math.min(minX, item.minX);
+                minZ = Math.min(minZ, item.minZ);
+                maxX = Math.max(maxX, item.maxX);
+                maxZ = Math.max(maxZ, item.maxZ);
+                // Leaves hold the terrains directly, instead of their single-terrain nodes.
+                children[i - start] = leaves ? item.children[0] : item;
+            }
+
+            nodes[n] = new Node(minX, minZ, maxX, maxZ, children, leaves);
+        }
+
+        return nodes;
+    }
+
+    /**
+     * @return A new tree with the terrain, or this tree if the terrain was already present.
+     */
+    @NotNull LargeTerrainTree with(@NotNull Terrain terrain) {
+        for (Terrain t : terrains) if (t.equals(terrain)) return this;
+        Terrain[] newTerrains = Arrays.copyOf(terrains, terrains.length + 1);
+        newTerrains[terrains.length] = terrain;
+        return new LargeTerrainTree(newTerrains);
+    }
+
+    /**
+     * @return A new tree without the terrain, or this tree if the terrain was not present.
+     */
+    @NotNull LargeTerrainTree without(@NotNull Terrain terrain) {
+        for (int i = 0; i < terrains.length; i++) {
+            if (!terrains[i].equals(terrain)) continue;
+            if (terrains.length == 1) return EMPTY;
+
+            Terrain[] newTerrains = new Terrain[terrains.length - 1];
+            System.arraycopy(terrains, 0, newTerrains, 0, i);
+            System.arraycopy(terrains, i + 1, newTerrains, i, terrains.length - i - 1);
+            return new LargeTerrainTree(newTerrains);
+        }
+        return this;
+    }
+
+    boolean contains(@NotNull Terrain terrain) {
+        for (Terrain t : terrains) if (t.equals(terrain)) return true;
+        return false;
+    }
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Whether any terrain of this tree might intersect the 2D area, by testing only the bounds of the root node.
+     */
+    boolean mayIntersect(int minX, int minZ, int maxX, int maxZ) {
+        Node root = this.root;
+        return root != null && maxX >= root.minX && minX <= root.maxX && maxZ >= root.minZ && minZ <= root.maxZ;
+    }
+
+    /**
+     * Finds the first terrain in {@link TerrainManager#PRIORITY_COMPARATOR} order that has the block coordinate within
+     * and comes after the provided terrain. Few large terrains overlap at a block, so they're walked in order by calling
+     * this repeatedly, instead of collecting them into a sorted set.
+     *
+     * @param after The terrain returned by the previous call, null to find the first terrain.
+     * @return The next terrain at the block coordinate, or null if there are no more.
+     */
+    @Nullable Terrain next(int x, int y, int z, @Nullable Terrain after) {
+        if (root == null) return null;
+        return next(root, x, y, z, after, null);
+    }
+
+    private static @Nullable Terrain next(@NotNull Node node, int x, int y, int z, @Nullable Terrain after, @Nullable Terrain next) {
+        if (x < node.minX || x > node.maxX || z < node.minZ || z > node.maxZ) return next;
+
+        for (Object child : node.children) {
+            if (node.leaf) {
+                Terrain terrain = (Terrain) child;
+                if (after != null && TerrainManager.PRIORITY_COMPARATOR.compare(terrain, after) <= 0) continue;
+                if (next != null && TerrainManager.PRIORITY_COMPARATOR.compare(terrain, next) >= 0) continue;
+                if (!terrain.isWithin(x, y, z)) continue;
+                next = terrain;
+            } else {
+                next = next((Node) child, x, y, z, after, next);
+            }
+        }
+
+        return next;
+    }
+
+    /**
+     * Adds the terrains whose diagonals intersect the 2D area to the collection.
+     *
+     * @param into The collection to add the terrains to.
+     */
+    void collect(int minX, int minZ, int maxX, int maxZ, @NotNull Collection<Terrain> into) {
+        if (root != null) collect(root, minX, minZ, maxX, maxZ, into);
+    }
+
+    private static void collect(@NotNull Node node, int minX, int minZ, int maxX, int maxZ, @NotNull Collection<Terrain> into) {
+        if (maxX < node.minX || minX > node.maxX || maxZ < node.minZ || minZ > node.maxZ) return;
+
+        for (Object child : node.children) {
+            if (node.leaf) {
+                Terrain terrain = (Terrain) child;
+                if (maxX < terrain.minDiagonal.x() || minX > terrain.maxDiagonal.x() || maxZ < terrain.minDiagonal.z() || minZ > terrain.maxDiagonal.z())
+                    continue;
+                into.add(terrain);
+            } else {
+                collect((Node) child, minX, minZ, maxX, maxZ, into);
+            }
+        }
+    }
+
+    /**
+     * A node of the tree. Leaf nodes have terrains as children, other nodes have nodes as children.
+     */
+    private record Node(int minX, int minZ, int maxX, int maxZ, @NotNull Object @NotNull [] children, boolean leaf) {
+    }
+}
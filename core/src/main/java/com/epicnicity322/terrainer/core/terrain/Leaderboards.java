@@ -0,0 +1,135 @@
+/*
+ * Terrainer - A minecraft terrain claiming protection plugin.
+ * Copyright (C) 2026 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.terrainer.core.terrain;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Rankings of players by the amount of blocks they have claimed, the amount of terrains they have claimed and the
+ * amount of terrains they are associated with, kept up to date by {@link TerrainManager} as terrains change.
+ * <p>
+ * The scores of a player are recalculated from the indexes of {@link TerrainManager} whenever one of their terrains
+ * changes, then moved in the rankings, so rank lookups never calculate scores. CONSOLE is not ranked.
+ */
+final class Leaderboards {
+    private static final int BLOCKS_NESTED = 0, BLOCKS = 1, CLAIMS = 2, ASSOCIATED = 3;
+
+    private final @NotNull BlockUsage blockUsage;
+    /**
+     * The scores of every ranked player, so they can be found in the rankings when they change.
+     */
+    private final @NotNull HashMap<UUID, Scores> scores = new HashMap<>();
+    private final @NotNull Ranking @NotNull [] global = {new Ranking(), new Ranking(), new Ranking(), new Ranking()};
+    /**
+     * The rankings of blocks nested, blocks and claims by world.
+     */
+    private final @NotNull HashMap<UUID, Ranking[]> worlds = new HashMap<>();
+
+    Leaderboards(@NotNull BlockUsage blockUsage) {
+        this.blockUsage = blockUsage;
+    }
+
+    /**
+     * Recalculates the scores of the player and updates their positions in the rankings.
+     *
+     * @param player The player to update, null is ignored.
+     */
+    synchronized void update(@Nullable UUID player) {
+        if (player == null) return;
+        Scores previous = scores.get(player);
+        Scores current = calculate(player);
+
+        if (previous != null) {
+            for (int i = 0; i < 4; i++) if (previous.global[i] > 0) global[i].remove(previous.global[i], player);
+            previous.worlds.forEach((world, amounts) -> {
+                Ranking[] rankings = worlds.get(world);
+                if (rankings == null) return;
+                for (int i = 0; i < 3; i++) if (amounts[i] > 0) rankings[i].remove(amounts[i], player);
+                if (rankings[BLOCKS].isEmpty() && rankings[CLAIMS].isEmpty()) worlds.remove(world);
+            });
+        }
+
+        if (current == null) {
+            scores.remove(player);
+            return;
+        }
+
+        scores.put(player, current);
+        for (int i = 0; i < 4; i++) if (current.global[i] > 0) global[i].add(current.global[i], player);
+        current.worlds.forEach((world, amounts) -> {
+            Ranking[] rankings = worlds.computeIfAbsent(world, k -> new Ranking[]{new Ranking(), new Ranking(), new Ranking()});
+            for (int i = 0; i < 3; i++) if (amounts[i] > 0) rankings[i].add(amounts[i], player);
+        });
+    }
+
+    private @Nullable Scores calculate(@NotNull UUID player) {
+        List<Terrain> owned = TerrainManager.terrainsOf(player);
+        int associated = TerrainManager.associatedTerrains(player).size();
+        if (owned.isEmpty() && associated == 0) return null;
+
+        var scores = new Scores(new long[]{blockUsage.used(player, null, true, null), blockUsage.used(player, null, false, null), owned.size(), associated}, new HashMap<>(4));
+
+        for (Terrain terrain : owned) {
+            long[] amounts = scores.worlds.get(terrain.world);
+            if (amounts == null) {
+                amounts = new long[]{blockUsage.used(player, terrain.world, true, null), blockUsage.used(player, terrain.world, false, null), 0};
+                scores.worlds.put(terrain.world, amounts);
+            }
+            amounts[CLAIMS]++;
+        }
+
+        return scores;
+    }
+
+    /**
+     * Gets the player at the position in the ranking of claimed blocks.
+     *
+     * @param position The position in the ranking, starting at 0.
+     * @param world    The world to rank, null to rank blocks of every world.
+     * @param nested   Whether blocks covered by more than one terrain are counted for every terrain.
+     * @return The player at the position or null if there's no player in it.
+     */
+    synchronized @Nullable UUID blocks(int position, @Nullable UUID world, boolean nested) {
+        return get(position, world, nested ? BLOCKS_NESTED : BLOCKS);
+    }
+
+    synchronized @Nullable UUID claims(int position, @Nullable UUID world) {
+        return get(position, world, CLAIMS);
+    }
+
+    synchronized @Nullable UUID associated(int position) {
+        return global[ASSOCIATED].get(position);
+    }
+
+    private @Nullable UUID get(int position, @Nullable UUID world, int ranking) {
+        if (world == null) return global[ranking].get(position);
+        Ranking[] rankings = worlds.get(world);
+        return rankings == null ? null : rankings[ranking].get(position);
+    }
+
+    /**
+     * @param global The scores of the player in all worlds, indexed by ranking.
+     * @param worlds The blocks nested, blocks and claims scores of the player, by world.
+     */
+    private record Scores(long @NotNull [] global, @NotNull HashMap<UUID, long[]> worlds) {
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Terrainer - A minecraft terrain claiming protection plugin.
+ * Copyright (C) 2026 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.terrainer.core.terrain;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * An index of registered terrains by their colour-stripped names, used by {@link TerrainManager} to find terrains by
+ * name and to list names for tab completion.
+ * <p>
+ * Names are kept in sorted maps, so every name starting with a prefix sits in a contiguous range that is found with a
+ * single lookup, in the same way a prefix trie would. Besides the global view, a view is kept for each owner, so
+ * players that can only find their own terrains don't walk names of terrains from everyone else.
+ */
+final class NameIndex {
+    private final @NotNull TreeMap<String, Set<Terrain>> global = new TreeMap<>();
+    private final @NotNull HashMap<UUID, TreeMap<String, Set<Terrain>>> owners = new HashMap<>();
+
+    synchronized void add(@NotNull Terrain terrain, @NotNull String name, @Nullable UUID owner) {
+        link(global, name, terrain);
+        if (owner != null) link(owners.computeIfAbsent(owner, k -> new TreeMap<>()), name, terrain);
+    }
+
+    synchronized void remove(@NotNull Terrain terrain, @NotNull String name, @Nullable UUID owner) {
+        unlink(global, name, terrain);
+        if (owner == null) return;
+        TreeMap<String, Set<Terrain>> names = owners.get(owner);
+        if (names == null) return;
+        unlink(names, name, terrain);
+        if (names.isEmpty()) owners.remove(owner);
+    }
+
+    /**
+     * Gets the terrains with the exact colour-stripped name.
+     *
+     * @param name The colour-stripped name.
+     * @return A mutable list with the terrains that have this name.
+     */
+    synchronized @NotNull List<Terrain> named(@NotNull String name) {
+        Set<Terrain> terrains = global.get(name);
+        return terrains == null ? new ArrayList<>(0) : new ArrayList<>(terrains);
+    }
+
+    /**
+     * Gets the terrains whose colour-stripped name starts with the prefix, sorted by name.
+     *
+     * @param owner  The owner of the terrains, null to get the terrains of every owner.
+     * @param prefix The prefix of the colour-stripped names.
+     * @return A mutable list with the terrains that have names starting with the prefix.
+     */
+    synchronized @NotNull List<Terrain> startingWith(@Nullable UUID owner, @NotNull String prefix) {
+        TreeMap<String, Set<Terrain>> names = owner == null ? global : owners.get(owner);
+        ArrayList<Terrain> found = new ArrayList<>();
+        if (names == null) return found;
+
+        for (Map.Entry<String, Set<Terrain>> entry : names.tailMap(prefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) break;
+            found.addAll(entry.getValue());
+        }
+        return found;
+    }
+
+    private static void link(@NotNull TreeMap<String, Set<Terrain>> names, @NotNull String name, @NotNull Terrain terrain) {
+        // Most names are unique.
+        names.computeIfAbsent(name, k -> new HashSet<>(2)).add(terrain);
+    }
+
+    private static void unlink(@NotNull TreeMap<String, Set<Terrain>> names, @NotNull String name, @NotNull Terrain terrain) {
+        Set<Terrain> terrains = names.get(name);
+        if (terrains == null) return;
+        terrains.remove(terrain);
+        if (terrains.isEmpty()) names.remove(name);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Terrainer - A minecraft terrain claiming protection plugin.
+ * Copyright (C) 2026 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.terrainer.core.terrain;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A ranking of players by score, from highest to lowest, that finds the player at any position in logarithmic time.
+ * <p>
+ * Players are kept in a treap where every node knows the size of its subtree. Players with the same score are ranked by
+ * their UUID. This class is not thread safe.
+ */
+final class Ranking {
+    private @Nullable Node root;
+
+    private static int compare(long score, @NotNull UUID player, @NotNull Node node) {
+        int compare = Long.compare(node.score, score);
+        return compare != 0 ? compare : player.compareTo(node.player);
+    }
+
+    private static int size(@Nullable Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static @NotNull Node update(@NotNull Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        return node;
+    }
+
+    private static @Nullable Node merge(@Nullable Node left, @Nullable Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        } else {
+            right.left = merge(left, right.left);
+            return update(right);
+        }
+    }
+
+    /**
+     * Splits the tree in the nodes ranked before the node, which are set as its left child, and the nodes ranked after
+     * it, which are set as its right child.
+     */
+    private static void split(@Nullable Node tree, @NotNull Node node) {
+        if (tree == null) {
+            node.left = node.right = null;
+            return;
+        }
+
+        if (compare(node.score, node.player, tree) < 0) {
+            split(tree.left, node);
+            tree.left = node.right;
+            node.right = update(tree);
+        } else {
+            split(tree.right, node);
+            tree.right = node.left;
+            node.left = update(tree);
+        }
+    }
+
+    private static @NotNull Node insert(@Nullable Node tree, @NotNull Node node) {
+        if (tree == null) return node;
+
+        if (node.priority > tree.priority) {
+            split(tree, node);
+            return update(node);
+        }
+
+        if (compare(node.score, node.player, tree) < 0) tree.left = insert(tree.left, node);
+        else tree.right = insert(tree.right, node);
+        return update(tree);
+    }
+
+    private static @Nullable Node delete(@Nullable Node tree, long score, @NotNull UUID player) {
+        if (tree == null) return null;
+        int compare = compare(score, player, tree);
+
+        if (compare == 0) return merge(tree.left, tree.right);
+        if (compare < 0) tree.left = delete(tree.left, score, player);
+        else tree.right = delete(tree.right, score, player);
+        return update(tree);
+    }
+
+    /**
+     * Adds the player with the score. The player must not be in the ranking with the same score already.
+     */
+    void add(long score, @NotNull UUID player) {
+        root = insert(root, new Node(score, player, ThreadLocalRandom.current().nextInt()));
+    }
+
+    /**
+     * Removes the player that was added with the score.
+     */
+    void remove(long score, @NotNull UUID player) {
+        root = delete(root, score, player);
+    }
+
+    /**
+     * Gets the player at the position.
+     *
+     * @param position The position in the ranking, starting at 0 for the highest score.
+     * @return The player at the position, or null if there aren't enough players in the ranking.
+     */
+    @Nullable UUID get(int position) {
+        Node node = root;
+
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (position == leftSize) return node.player;
+            if (position < leftSize) {
+                node = node.left;
+            } else {
+                position -= leftSize + 1;
+                node = node.right;
+            }
+        }
+
+        return null;
+    }
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    private static final class Node {
+        private final long score;
+        private final @NotNull UUID player;
+        private final int priority;
+        private @Nullable Node left, right;
+        private int size = 1;
+
+        private Node(long score, @NotNull UUID player, int priority) {
+            this.score = score;
+            this.player = player;
+            this.priority = priority;
+        }
+    }
+}
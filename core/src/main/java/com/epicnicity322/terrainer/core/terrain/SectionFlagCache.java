@@ -0,0 +1,285 @@
+/*
+ * Terrainer - A minecraft terrain claiming protection plugin.
+ * Copyright (C) 2026 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.terrainer.core.terrain;
+
+import com.epicnicity322.terrainer.core.flag.Flag;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache of the resolved flags of the 16x16x16 chunk sections of a single world, used by {@link TerrainManager} for
+ * flag checks that don't involve players.
+ * <p>
+ * A section is only cacheable when every terrain that touches it covers it whole, because then every block of the
+ * section has the same terrains and resolves flags to the same values. Sections at the edge of a terrain are cached
+ * as {@link #EDGE}, so the caller knows to resolve the flag block by block.
+ * <p>
+ * Sections are invalidated by {@link #invalidate(int, int, int, int, int, int)} whenever a terrain overlapping them is
+ * added, removed, resized, reprioritized or has its flags changed. A section that was computed while an invalidation
+ * happened is discarded instead of cached, so stale sections are never published.
+ * <p>
+ * Sections are kept in an open addressing table keyed by the packed section coordinates, like the chunks of
+ * {@link ChunkIndex}, so lookups don't box keys. Writes are synchronized, and readers use the table without locking.
+ */
+final class SectionFlagCache {
+    /**
+     * The section cached for edges of terrains, where flags must be resolved per block.
+     */
+    static final @NotNull Section EDGE = new Section(ChunkIndex.EMPTY);
+    /**
+     * When this amount of sections is reached, the cache is cleared to not grow indefinitely.
+     */
+    private static final int MAX_SECTIONS = 1 << 15;
+    private static final int INITIAL_CAPACITY = 64;
+    /**
+     * Marks a slot whose section was invalidated, so probing continues past it.
+     */
+    private static final @NotNull Entry REMOVED = new Entry(0, EDGE);
+
+    static final @NotNull LongAdder hits = new LongAdder();
+    static final @NotNull LongAdder misses = new LongAdder();
+
+    private volatile @Nullable Entry @NotNull [] table = new Entry[INITIAL_CAPACITY];
+    private int size = 0;
+    private int removed = 0;
+    private volatile int version = 0;
+
+    /**
+     * Packs the section coordinates in a long. X and Z take 26 bits each and the Y takes 12 bits.
+     */
+    static long key(int chunkX, int sectionY, int chunkZ) {
+        return ((long) chunkX << 38) | ((chunkZ & 0x3FFFFFFL) << 12) | (sectionY & 0xFFFL);
+    }
+
+    private static int keyX(long key) {
+        return (int) (key >> 38);
+    }
+
+    private static int keyZ(long key) {
+        return (int) (key << 26 >> 38);
+    }
+
+    private static int keyY(long key) {
+        return (int) (key << 52 >> 52);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Nullable Section get(long key) {
+        Entry[] table = this.table;
+        int mask = table.length - 1;
+
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            Entry entry = table[i];
+            if (entry == null) return null;
+            if (entry != REMOVED && entry.key == key) return entry.section;
+        }
+    }
+
+    /**
+     * @return The version to be passed to {@link #put(long, Section, int)}, read before computing a section.
+     */
+    int version() {
+        return version;
+    }
+
+    /**
+     * Caches the section, if no invalidations happened since the version was read.
+     */
+    synchronized void put(long key, @NotNull Section section, int version) {
+        if (this.version != version) return;
+        if (size >= MAX_SECTIONS) {
+            table = new Entry[INITIAL_CAPACITY];
+            size = 0;
+            removed = 0;
+        }
+
+        Entry[] table = this.table;
+        int mask = table.length - 1;
+        int i = hash(key) & mask;
+        int free = -1;
+        Entry entry;
+
+        while ((entry = table[i]) != null) {
+            if (entry == REMOVED) {
+                if (free == -1) free = i;
+            } else if (entry.key == key) {
+                table[i] = new Entry(key, section);
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+
+        if (free == -1) free = i;
+        else removed--;
+
+        table[free] = new Entry(key, section);
+
+        // Keeping at least half of the table empty, so probing is short and always finds an empty slot.
+        if ((++size + removed) << 1 > table.length) rehash();
+    }
+
+    /**
+     * Removes the cached sections within the section coordinates, inclusive.
+     */
+    synchronized void invalidate(int minChunkX, int minSectionY, int minChunkZ, int maxChunkX, int maxSectionY, int maxChunkZ) {
+        version++;
+        if (size == 0) return;
+
+        // Double, because the amount of sections of huge terrains overflows a long.
+        double amount = (maxChunkX - (double) minChunkX + 1.0) * (maxSectionY - (double) minSectionY + 1.0) * (maxChunkZ - (double) minChunkZ + 1.0);
+        Entry[] table = this.table;
+
+        // Picking whichever is smaller to iterate: the cached sections or the invalidated sections.
+        if (amount > size) {
+            for (int i = 0; i < table.length; i++) {
+                Entry entry = table[i];
+                if (entry == null || entry == REMOVED) continue;
+                int x = keyX(entry.key), y = keyY(entry.key), z = keyZ(entry.key);
+                if (x >= minChunkX && x <= maxChunkX && y >= minSectionY && y <= maxSectionY && z >= minChunkZ && z <= maxChunkZ) {
+                    remove(table, i);
+                }
+            }
+        } else {
+            for (int x = minChunkX; x <= maxChunkX; x++) {
+                for (int z = minChunkZ; z <= maxChunkZ; z++) {
+                    for (int y = minSectionY; y <= maxSectionY; y++) remove(key(x, y, z));
+                }
+            }
+        }
+
+        if (removed > table.length >> 2) rehash();
+    }
+
+    private void remove(long key) {
+        Entry[] table = this.table;
+        int mask = table.length - 1;
+        Entry entry;
+
+        for (int i = hash(key) & mask; (entry = table[i]) != null; i = (i + 1) & mask) {
+            if (entry == REMOVED || entry.key != key) continue;
+            remove(table, i);
+            return;
+        }
+    }
+
+    private void remove(@Nullable Entry @NotNull [] table, int i) {
+        table[i] = REMOVED;
+        size--;
+        removed++;
+    }
+
+    /**
+     * Copies the entries into a new table sized for the current amount of sections, dropping removed slots. Readers
+     * keep using the old table until the new one is published.
+     */
+    private void rehash() {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < size << 2) capacity <<= 1;
+
+        Entry[] newTable = new Entry[capacity];
+        int mask = capacity - 1;
+
+        for (Entry entry : table) {
+            if (entry == null || entry == REMOVED) continue;
+            int i = hash(entry.key) & mask;
+            while (newTable[i] != null) i = (i + 1) & mask;
+            newTable[i] = entry;
+        }
+
+        removed = 0;
+        table = newTable;
+    }
+
+    private record Entry(long key, @NotNull Section section) {
+    }
+
+    /**
+     * A cached section with the terrains covering it, and the flags resolved so far.
+     */
+    static final class Section {
+        /**
+         * Marks flags that no terrain in the section has data for.
+         */
+        private static final @NotNull Object UNSET = new Object();
+        private static final @Nullable Object @NotNull [] NONE_RESOLVED = new Object[0];
+
+        /**
+         * The terrains covering the whole section, sorted by priority.
+         */
+        private final @NotNull Terrain @NotNull [] terrains;
+        /**
+         * The highest priority terrain and data of each resolved flag, by {@link Flag#ordinal()}. The array is replaced
+         * by a bigger copy when a flag with a higher ordinal is resolved, so a resolution racing with the copy may be
+         * lost, and is then resolved again.
+         */
+        private volatile @Nullable Object @NotNull [] resolved = NONE_RESOLVED;
+
+        Section(@NotNull Terrain @NotNull [] terrains) {
+            this.terrains = terrains;
+        }
+
+        /**
+         * Gets the highest priority terrain in this section with data for the flag, resolving it only once.
+         * <p>
+         * Flags that were not registered have no ordinal, and are resolved every time.
+         *
+         * @return An entry with the terrain and the flag's data, null if no terrain has data for the flag.
+         */
+        @SuppressWarnings("unchecked")
+        <T> Map.@Nullable Entry<Terrain, T> resolve(@NotNull Flag<T> flag) {
+            int ordinal = flag.ordinal();
+            Object[] resolved = this.resolved;
+            Object found = ordinal >= 0 && ordinal < resolved.length ? resolved[ordinal] : null;
+
+            if (found != null) {
+                hits.increment();
+                return found == UNSET ? null : (Map.Entry<Terrain, T>) found;
+            }
+
+            misses.increment();
+            Map.Entry<Terrain, T> entry = null;
+
+            // Terrains are sorted by priority.
+            for (Terrain terrain : terrains) {
+                T data = terrain.flags().getData(flag);
+                if (data != null) {
+                    entry = Map.entry(terrain, data);
+                    break;
+                }
+            }
+
+            if (ordinal >= 0) {
+                if (ordinal >= resolved.length) {
+                    resolved = Arrays.copyOf(resolved, Math.max(ordinal + 1, resolved.length << 1));
+                }
+                resolved[ordinal] = entry == null ? UNSET : entry;
+                this.resolved = resolved;
+            }
+            return entry;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.epicnicity322.terrainer.core.Terrainer;
 import com.epicnicity322.terrainer.core.flag.Flag;
 import com.epicnicity322.terrainer.core.flag.Flags;
 import com.epicnicity322.terrainer.core.location.Chunk;
+import com.epicnicity322.terrainer.core.location.ChunkRange;
 import com.epicnicity322.terrainer.core.location.Coordinate;
 import com.epicnicity322.terrainer.core.location.WorldCoordinate;
 import com.epicnicity322.terrainer.core.util.PlayerUtil;
@@ -58,7 +59,11 @@ public class Terrain implements Serializable {
     @NotNull Coordinate minDiagonal;
     @NotNull Coordinate maxDiagonal;
     transient @Nullable Set<Coordinate> borders;
-    volatile @NotNull Set<Chunk> chunks;
+    /**
+     * Not serialized, since chunks are computed from the diagonals. Null until {@link #chunks()} is first called on
+     * deserialized terrains.
+     */
+    transient volatile @Nullable Set<Chunk> chunks;
     @NotNull String name;
     @Nullable String description;
     int priority;
@@ -253,32 +258,21 @@ public class Terrain implements Serializable {
      * @apiNote In order to avoid concurrency issues, this method must be called in the same lock that updates the
      * fields related to chunk computation, such as minDiagonal and maxDiagonal (different implementations may use
      * different fields).
+     * <p>
+     * Deserialized terrains call this on the first call to {@link #chunks()}, once every field is read.
      * @implSpec These chunks will be used for finding the terrain, so this should take into account terrains that are
-     * not cuboid shaped.
+     * not cuboid shaped. Returning a {@link ChunkRange} is preferred for rectangular footprints, because it does not
+     * hold every chunk in memory and allows {@link TerrainManager} to update only the chunks that changed.
      * <p>
      * When the amount of chunks is greater than {@link #MAX_CHUNK_AMOUNT}, an empty set should be returned.
      */
     @Unmodifiable
     protected @NotNull Set<Chunk> findChunks() {
         // Converting block coordinates to chunk coordinates.
-        int maxX = (int) maxDiagonal.x() >> 4;
-        int minX = (int) minDiagonal.x() >> 4;
-        int maxZ = (int) maxDiagonal.z() >> 4;
-        int minZ = (int) minDiagonal.z() >> 4;
-
-        long chunkAmount = ((maxX - minX + 1L) * (maxZ - minZ + 1L));
-
-        if (chunkAmount > MAX_CHUNK_AMOUNT) return Collections.emptySet();
+        var chunks = new ChunkRange((int) minDiagonal.x() >> 4, (int) minDiagonal.z() >> 4, (int) maxDiagonal.x() >> 4, (int) maxDiagonal.z() >> 4);
 
-        var chunks = new HashSet<Chunk>((int) (chunkAmount / .75f) + 1);
-
-        for (int x = minX; x <= maxX; x++) {
-            for (int z = minZ; z <= maxZ; z++) {
-                chunks.add(new Chunk(x, z));
-            }
-        }
-
-        return Collections.unmodifiableSet(chunks);
+        if (chunks.chunkAmount() > MAX_CHUNK_AMOUNT) return Collections.emptySet();
+        return chunks;
     }
 
     /**
@@ -314,7 +308,10 @@ public class Terrain implements Serializable {
      */
     protected void markAsChanged() {
         changed = true;
-        if (save) TerrainManager.loadAutoSave();
+        if (save) {
+            TerrainManager.epoch.incrementAndGet();
+            TerrainManager.loadAutoSave();
+        }
     }
 
     /**
@@ -371,20 +368,24 @@ public class Terrain implements Serializable {
         Coordinate minDiagonal = findMinMax(first, second, true);
         Coordinate maxDiagonal = findMinMax(first, second, false);
         Set<Chunk> previousChunks;
+        Coordinate previousMinimum, previousMaximum;
 
         synchronized (this) {
             // Avoid unnecessary computations and don't mark terrain as changed.
             if (minDiagonal.equals(this.minDiagonal) && maxDiagonal.equals(this.maxDiagonal)) return;
 
+            previousMinimum = this.minDiagonal;
+            previousMaximum = this.maxDiagonal;
             this.minDiagonal = minDiagonal;
             this.maxDiagonal = maxDiagonal;
             this.borders = null;
 
-            previousChunks = chunks;
+            previousChunks = chunks();
             updateChunks();
         }
 
-        notifyChunksUpdate(previousChunks);
+        // Same as notifyChunksUpdate, but the previous diagonals bound the area that changed better than the chunks.
+        if (save) TerrainManager.chunkUpdate(this, previousChunks, previousMinimum, previousMaximum);
         markAsChanged();
     }
 
@@ -424,7 +425,14 @@ public class Terrain implements Serializable {
      * @return A set with the exact chunks of this terrain. Empty if this is a {@link WorldTerrain}.
      */
     public @NotNull Set<Chunk> chunks() {
-        return chunks;
+        Set<Chunk> chunks = this.chunks;
+        if (chunks != null) return chunks;
+
+        // Deserialized terrains find their chunks lazily, since subclass fields are not read yet in readObject.
+        synchronized (this) {
+            if (this.chunks == null) this.chunks = findChunks();
+            return this.chunks;
+        }
     }
 
     /**
@@ -445,7 +453,10 @@ public class Terrain implements Serializable {
      */
     public void setName(@NotNull String name) {
         if (name.equals(this.name)) return; // Don't mark terrain as changed.
+        String previousName = this.name;
         this.name = name;
+        // If this terrain is registered to save, then update in registered terrain names map.
+        if (save) TerrainManager.nameUpdate(this, previousName);
         markAsChanged();
     }
 
@@ -485,7 +496,10 @@ public class Terrain implements Serializable {
      */
     public void setOwner(@Nullable UUID owner) {
         if (Objects.equals(this.owner, owner)) return; // Don't mark terrain as changed.
+        UUID previousOwner = this.owner;
         this.owner = owner;
+        // If this terrain is registered to save, then update in registered terrain owners map.
+        if (save) TerrainManager.ownerUpdate(this, previousOwner);
         markAsChanged();
     }
 
@@ -513,6 +527,8 @@ public class Terrain implements Serializable {
     public void setPriority(int priority) {
         if (this.priority == priority) return; // Don't mark terrain as changed.
         this.priority = priority;
+        // Terrains are kept sorted by priority in the chunks map.
+        if (save) TerrainManager.priorityUpdate(this);
         markAsChanged();
     }
 
@@ -712,6 +728,7 @@ public class Terrain implements Serializable {
                 unmodifiableSet = Collections.unmodifiableSet(set);
             }
             if (set.add(e)) {
+                relationUpdate(e);
                 markAsChanged();
                 return true;
             } else {
@@ -733,13 +750,21 @@ public class Terrain implements Serializable {
                     set = null;
                     unmodifiableSet = null;
                 }
+                relationUpdate(e);
             }
         }
 
         public boolean removeIf(@NotNull Predicate<E> filter) {
             if (set == null) return false;
+            // Keeping track of removed entries, so they can be updated in the relation index.
+            ArrayList<E> removed = save ? new ArrayList<>() : null;
             try {
-                if (set.removeIf(filter)) {
+                if (set.removeIf(e -> {
+                    if (!filter.test(e)) return false;
+                    if (removed != null) removed.add(e);
+                    return true;
+                })) {
+                    if (removed != null) removed.forEach(this::relationUpdate);
                     markAsChanged();
                     return true;
                 } else {
@@ -754,10 +779,23 @@ public class Terrain implements Serializable {
         }
 
         public void clear() {
-            boolean hadSomething = set != null;
+            HashSet<E> previous = set;
             set = null;
             unmodifiableSet = null;
-            if (hadSomething) markAsChanged();
+            if (previous != null) {
+                previous.forEach(this::relationUpdate);
+                markAsChanged();
+            }
+        }
+
+        /**
+         * Updates the entry in {@link TerrainManager}'s relation index, in case this is the set of members or
+         * moderators of a registered terrain.
+         *
+         * @param e The entry that was added or removed.
+         */
+        private void relationUpdate(@Nullable E e) {
+            if (save && e instanceof UUID player) TerrainManager.relationUpdate(Terrain.this, player);
         }
 
         public @NotNull Set<E> view() {
@@ -787,6 +825,10 @@ public class Terrain implements Serializable {
     /**
      * Helps to cast flag data objects, and tells the terrain when a change is made. To allow terrain auto-saving.
      * When the terrain has no flags, the map is unloaded from memory.
+     * <p>
+     * Data is stored by flag ID, so flags of plugins that are no longer installed are kept. Data of registered flags is
+     * also indexed in an array by {@link Flag#ordinal()}, so getting it doesn't require hashing or type checking.
+     * Boolean flags are indexed in two bitsets by {@link Flag#booleanOrdinal()} instead.
      */
     public final class FlagMap implements Serializable {
         private static final int INITIAL_CAPACITY = 8;
@@ -795,6 +837,14 @@ public class Terrain implements Serializable {
 
         @Nullable HashMap<String, Object> map;
         private @Nullable Map<String, Object> unmodifiableMap;
+        /**
+         * The data of the registered flags by ordinal. Built on demand, and discarded whenever the map changes.
+         */
+        private transient @Nullable OrdinalIndex ordinalIndex;
+        /**
+         * The amount of times this map changed, so an index built from an outdated map is never used.
+         */
+        private transient volatile int modifications;
 
         private FlagMap(@Nullable HashMap<String, Object> map) {
             if (map != null && !map.isEmpty()) {
@@ -845,11 +895,10 @@ public class Terrain implements Serializable {
                 map = new HashMap<>(INITIAL_CAPACITY);
                 unmodifiableMap = Collections.unmodifiableMap(map);
             }
-            try {
-                return map.put(flag.id(), data);
-            } finally {
-                markAsChanged();
-            }
+            Object previous = map.put(flag.id(), data);
+            if (previous == null) usageUpdate(flag.id(), 1);
+            markAsChanged();
+            return previous;
         }
 
         /**
@@ -869,7 +918,30 @@ public class Terrain implements Serializable {
 
         @SuppressWarnings("unchecked")
         private <T> @Nullable T getData(@NotNull Flag<T> flag, boolean useDefault) {
+            HashMap<String, Object> map = this.map;
             if (map == null) return useDefault ? flag.defaultValue() : null;
+
+            int ordinal = flag.ordinal();
+            if (ordinal != -1) {
+                OrdinalIndex index = this.ordinalIndex;
+                // Flags registered after the index was built have ordinals out of bounds.
+                if (index == null || index.modifications() != modifications || ordinal >= index.data().length) {
+                    index = indexOrdinals();
+                }
+
+                int booleanOrdinal = flag.booleanOrdinal();
+                if (booleanOrdinal != -1) {
+                    long bit = 1L << booleanOrdinal;
+                    if ((index.booleansSet() & bit) == 0) return useDefault ? flag.defaultValue() : null;
+                    return (T) Boolean.valueOf((index.booleanValues() & bit) != 0);
+                }
+
+                Object data = index.data()[ordinal];
+                if (data == null) return useDefault ? flag.defaultValue() : null;
+                return (T) data;
+            }
+
+            // Unregistered flag.
             Object data = map.get(flag.id());
             if (data == null) return useDefault ? flag.defaultValue() : null;
             if (flag.dataType().isAssignableFrom(data.getClass())) {
@@ -879,6 +951,36 @@ public class Terrain implements Serializable {
             }
         }
 
+        /**
+         * Builds the index from the current map. The index is stamped with the modifications read before the map, so if
+         * the map changes while the index is built, the index is discarded on the next read instead of being used.
+         */
+        private @NotNull OrdinalIndex indexOrdinals() {
+            int modifications = this.modifications;
+            HashMap<String, Object> map = this.map;
+            Flag<?>[] flags = Flags.ordinals();
+            Object[] data = new Object[flags.length];
+            long booleansSet = 0, booleanValues = 0;
+
+            for (int i = 0; map != null && i < flags.length; i++) {
+                Flag<?> flag = flags[i];
+                Object flagData = map.get(flag.id());
+                if (flagData == null || !flag.dataType().isInstance(flagData)) continue;
+
+                if (flag.booleanOrdinal() == -1) {
+                    data[i] = flagData;
+                } else {
+                    long bit = 1L << flag.booleanOrdinal();
+                    booleansSet |= bit;
+                    if ((Boolean) flagData) booleanValues |= bit;
+                }
+            }
+
+            OrdinalIndex index = new OrdinalIndex(data, booleansSet, booleanValues, modifications);
+            ordinalIndex = index;
+            return index;
+        }
+
         /**
          * Removes a flag and its data from this terrain.
          *
@@ -898,6 +1000,7 @@ public class Terrain implements Serializable {
             try {
                 return map.remove(flag.id());
             } finally {
+                usageUpdate(flag.id(), -1);
                 if (map.isEmpty()) {
                     map = null;
                     unmodifiableMap = null;
@@ -928,6 +1031,7 @@ public class Terrain implements Serializable {
                     return null;
                 }
             } finally {
+                usageUpdate(flag.id(), -1);
                 if (map.isEmpty()) {
                     map = null;
                     unmodifiableMap = null;
@@ -955,6 +1059,7 @@ public class Terrain implements Serializable {
         private boolean clear(boolean callEvents, @Nullable UUID affectedMember) {
             if (!callEvents) {
                 boolean wasEmpty = map == null || map.isEmpty();
+                if (map != null) for (String flagID : map.keySet()) usageUpdate(flagID, -1);
                 map = null;
                 unmodifiableMap = null;
                 if (!wasEmpty) markAsChanged();
@@ -964,8 +1069,9 @@ public class Terrain implements Serializable {
             if (map == null) return false;
             boolean anyRemoved = map.keySet().removeIf(flagID -> {
                 Flag<?> f = Flags.matchFlag(flagID);
-                if (f == null) return true;
-                return !TerrainManager.callOnFlagUnset(Terrain.this, f, affectedMember);
+                if (f != null && TerrainManager.callOnFlagUnset(Terrain.this, f, affectedMember)) return false;
+                usageUpdate(flagID, -1);
+                return true;
             });
 
             if (map.isEmpty()) {
@@ -976,6 +1082,37 @@ public class Terrain implements Serializable {
             return anyRemoved;
         }
 
+        /**
+         * Keeps the flag usage counts of the terrain's world current, after a flag is set or unset in this map.
+         */
+        private void usageUpdate(@NotNull String flagID, int delta) {
+            if (save) TerrainManager.flagUsageUpdate(Terrain.this, flagID, delta);
+        }
+
+        /**
+         * Discards the ordinal index and invalidates the resolved flags of the terrain's sections before marking the
+         * terrain as changed. Flag maps of members don't affect the resolved flags.
+         */
+        private void markAsChanged() {
+            modifications++;
+            ordinalIndex = null;
+            if (save && this == flags) TerrainManager.flagUpdate(Terrain.this);
+            Terrain.this.markAsChanged();
+        }
+
+        /**
+         * The data of registered flags by ordinal.
+         *
+         * @param data          The data of non-boolean flags by {@link Flag#ordinal()}, only with data matching the
+         *                      flag's type.
+         * @param booleansSet   The bits of the boolean flags that are set, by {@link Flag#booleanOrdinal()}.
+         * @param booleanValues The bits of the boolean flags that are set to true, by {@link Flag#booleanOrdinal()}.
+         * @param modifications The {@link #modifications} of the map the index was built from.
+         */
+        private record OrdinalIndex(@Nullable Object @NotNull [] data, long booleansSet, long booleanValues,
+                                    int modifications) {
+        }
+
         @Override
         public boolean equals(@Nullable Object o) {
             if (this == o) return true;
@@ -0,0 +1,130 @@
+/*
+ * Terrainer - A minecraft terrain claiming protection plugin.
+ * Copyright (C) 2026 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.terrainer.core.terrain;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * A small mutable set of terrains backed by an array kept sorted by {@link TerrainManager#PRIORITY_COMPARATOR}.
+ * <p>
+ * Sets returned by {@link TerrainManager#terrainsAt(UUID, int, int, int)} rarely have more than a couple of terrains,
+ * and they are filled from arrays that are already sorted, so appending in order is cheaper than building a
+ * {@link TreeSet}.
+ */
+final class TerrainArraySet extends AbstractSet<Terrain> {
+    private @NotNull Terrain @NotNull [] elements;
+    private int size = 0;
+
+    TerrainArraySet(int initialCapacity) {
+        elements = new Terrain[Math.max(initialCapacity, 1)];
+    }
+
+    /**
+     * Appends a terrain known to come after every terrain in this set, in priority order.
+     *
+     * @param terrain The terrain to append.
+     * @return Always true, so this method can be used as a visitor of {@link TerrainManager#forEachTerrainAt(UUID, int, int, int, java.util.function.Predicate)}.
+     */
+    boolean append(@NotNull Terrain terrain) {
+        if (size == elements.length) elements = Arrays.copyOf(elements, size << 1);
+        elements[size++] = terrain;
+        return true;
+    }
+
+    @NotNull Terrain get(int index) {
+        return elements[index];
+    }
+
+    @Override
+    public boolean add(@NotNull Terrain terrain) {
+        if (contains(terrain)) return false;
+
+        int i = Arrays.binarySearch(elements, 0, size, terrain, TerrainManager.PRIORITY_COMPARATOR);
+        if (i < 0) i = -(i + 1);
+
+        if (size == elements.length) elements = Arrays.copyOf(elements, size << 1);
+        System.arraycopy(elements, i, elements, i + 1, size - i);
+        elements[i] = terrain;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean contains(@Nullable Object o) {
+        for (int i = 0; i < size; i++) if (elements[i].equals(o)) return true;
+        return false;
+    }
+
+    @Override
+    public boolean remove(@Nullable Object o) {
+        for (int i = 0; i < size; i++) {
+            if (elements[i].equals(o)) {
+                removeAt(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void removeAt(int i) {
+        System.arraycopy(elements, i + 1, elements, i, size - i - 1);
+        elements[--size] = null;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public @NotNull Iterator<Terrain> iterator() {
+        return new Iterator<>() {
+            private int next = 0;
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Terrain next() {
+                if (next >= size) throw new NoSuchElementException();
+                return elements[last = next++];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) throw new IllegalStateException();
+                removeAt(last);
+                next = last;
+                last = -1;
+            }
+        };
+    }
+}
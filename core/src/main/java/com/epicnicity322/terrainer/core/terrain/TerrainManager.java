@@ -30,6 +30,8 @@ import com.epicnicity322.terrainer.core.event.terrain.ITerrainRemoveEvent;
 import com.epicnicity322.terrainer.core.flag.Flag;
 import com.epicnicity322.terrainer.core.flag.Flags;
 import com.epicnicity322.terrainer.core.location.Chunk;
+import com.epicnicity322.terrainer.core.location.ChunkRange;
+import com.epicnicity322.terrainer.core.location.Coordinate;
 import com.epicnicity322.terrainer.core.location.WorldChunk;
 import com.epicnicity322.terrainer.core.location.WorldCoordinate;
 import com.epicnicity322.terrainer.core.util.LongTaskFeedback;
@@ -46,6 +48,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -66,17 +70,41 @@ public final class TerrainManager {
      */
     public static final @NotNull Comparator<Terrain> PRIORITY_COMPARATOR = Comparator.comparingInt(Terrain::priority).reversed().thenComparing(Terrain::id);
 
-    private static final int CHUNK_TERRAINSET_INITIAL_CAPACITY = 2;
+    /**
+     * Incremented every time a registered terrain is added, removed or changed.
+     */
+    static final @NotNull AtomicLong epoch = new AtomicLong();
+
+    /**
+     * The visitors of the flag queries of each thread, reused so flag lookups don't allocate them.
+     */
+    private static final @NotNull ThreadLocal<Visitors> visitors = ThreadLocal.withInitial(Visitors::new);
 
     private static final @NotNull Map<UUID, Terrain> registeredTerrains = new ConcurrentHashMap<>();
     /**
-     * A map of chunks that have terrains in it.
+     * The chunk indexes of the worlds that have terrains in it. Worlds are few, so the array is scanned instead of
+     * hashing the world's UUID on every lookup.
+     */
+    private static volatile @NotNull ChunkIndex @NotNull [] indexes = new ChunkIndex[0];
+    /**
+     * The registered terrains by the UUID of their owners. Terrains owned by CONSOLE are kept in {@link #consoleTerrains},
+     * since concurrent maps don't allow null keys.
      */
-    private static final @NotNull Map<WorldChunk, Set<Terrain>> chunks = new ConcurrentHashMap<>();
+    private static final @NotNull Map<UUID, Set<Terrain>> terrainsByOwner = new ConcurrentHashMap<>();
+    private static final @NotNull Set<Terrain> consoleTerrains = ConcurrentHashMap.newKeySet();
     /**
-     * A dummy chunk used in chunks map as the one that holds global/extremely huge terrains.
+     * The registered terrains by the UUID of their members and moderators.
      */
-    private static final @NotNull Chunk globalChunk = new Chunk(Integer.MAX_VALUE, Integer.MAX_VALUE);
+    private static final @NotNull Map<UUID, Set<Terrain>> terrainsByRelation = new ConcurrentHashMap<>();
+    /**
+     * The registered terrains by their colour-stripped names.
+     */
+    private static final @NotNull NameIndex names = new NameIndex();
+    /**
+     * The blocks used by the terrains of each owner.
+     */
+    private static final @NotNull BlockUsage blockUsage = new BlockUsage();
+    private static final @NotNull Leaderboards leaderboards = new Leaderboards(blockUsage);
     /**
      * A set with all the terrains to be deleted by the auto-saver.
      * Initial capacity of 4 because there usually isn't a ton of players deleting their terrains at the same time.
@@ -88,6 +116,8 @@ public final class TerrainManager {
     private static final @NotNull ArrayList<Predicate<ITerrainRemoveEvent>> onRemoveListeners = new ArrayList<>(2);
     private static final @NotNull ArrayList<Predicate<IFlagSetEvent<?>>> onFlagSetListeners = new ArrayList<>(2);
     private static final @NotNull ArrayList<Predicate<IFlagUnsetEvent<?>>> onFlagUnsetListeners = new ArrayList<>(2);
+    private static final @NotNull ArrayList<Runnable> onFlagUsageChangeListeners = new ArrayList<>(2);
+    private static final @NotNull ArrayList<BoundsChangeListener> onBoundsChangeListeners = new ArrayList<>(2);
 
     private static @Nullable Scheduled autoSave = null;
 
@@ -136,15 +166,24 @@ public final class TerrainManager {
         // Adding new instance of terrain.
         registeredTerrains.put(terrain.id, terrain);
 
-        // Adding the instance to chunks map, so it can be found with #terrainsAt map.
-        if (terrain.chunks.isEmpty()) { // Chunks are empty when the terrain is global/extremely huge.
-            chunks.computeIfAbsent(new WorldChunk(terrain.world, globalChunk), k -> ConcurrentHashMap.newKeySet(CHUNK_TERRAINSET_INITIAL_CAPACITY)).add(terrain);
-        } else {
-            terrain.chunks.forEach(chunk -> chunks.computeIfAbsent(new WorldChunk(terrain.world, chunk), k -> ConcurrentHashMap.newKeySet(CHUNK_TERRAINSET_INITIAL_CAPACITY)).add(terrain));
-        }
+        // Adding the instance to the world's chunk index, so it can be found with #terrainsAt.
+        // Chunks are empty when the terrain is global/extremely huge.
+        ChunkIndex index = indexOrCreate(terrain.world);
+        index.add(terrain, terrain.chunks());
+        index.flagUsage.add(terrain);
+
+        // Adding the instance to the owner and relation indexes, so it can be found with #terrainsOf.
+        indexOwner(terrain, terrain.owner, true);
+        for (UUID moderator : terrain.moderators.view()) link(terrainsByRelation, moderator, terrain);
+        for (UUID member : terrain.members.view()) link(terrainsByRelation, member, terrain);
+        names.add(terrain, TerrainerUtil.stripColor(terrain.name), terrain.owner);
+        blockUsage.update(terrain);
+        updateLeaderboards(terrain);
 
         // Setting Terrain #save to true, so it's saved automatically.
         terrain.save = true;
+        epoch.incrementAndGet();
+        callOnBoundsChange(terrain);
         return true;
     }
 
@@ -197,22 +236,23 @@ public final class TerrainManager {
         // Removing from registered terrains.
         registeredTerrains.remove(found.id);
 
-        // Removing from chunk map.
-        found.chunks.forEach(chunk -> {
-            var worldChunk = new WorldChunk(found.world, chunk);
-            Set<Terrain> chunkTerrains = chunks.get(worldChunk);
-            chunkTerrains.remove(found);
-            if (chunkTerrains.isEmpty()) chunks.remove(worldChunk);
-        });
-
-        // Removing from global terrains list.
-        var globalWorldChunk = new WorldChunk(found.world, globalChunk);
-        Set<Terrain> globalTerrains = chunks.get(globalWorldChunk);
-        if (globalTerrains != null) {
-            globalTerrains.remove(found);
-            if (globalTerrains.isEmpty()) chunks.remove(globalWorldChunk);
+        // Removing from chunk index and global terrains list.
+        ChunkIndex index = index(found.world);
+        if (index != null) {
+            index.remove(found, found.chunks());
+            index.flagUsage.remove(found);
         }
 
+        // Removing from owner and relation indexes.
+        indexOwner(found, found.owner, false);
+        for (UUID moderator : found.moderators.view()) unlink(terrainsByRelation, moderator, found);
+        for (UUID member : found.members.view()) unlink(terrainsByRelation, member, found);
+        names.remove(found, TerrainerUtil.stripColor(found.name), found.owner);
+        blockUsage.remove(found);
+        updateLeaderboards(found);
+        epoch.incrementAndGet();
+        callOnBoundsChange(found);
+
         if (callEvents) {
             // Adding this terrain on the list to be removed and loading the auto saver.
             terrainsToRemove.add(found.id);
@@ -223,36 +263,188 @@ public final class TerrainManager {
     }
 
     /**
-     * Removes the terrain from the chunks it was registered in, then adds the terrain again in the new chunks it's
-     * currently in.
+     * Removes the terrain from the chunks it was registered in and is no longer in, then adds the terrain to the new
+     * chunks it's currently in.
      *
      * @param terrain        The terrain to update in the chunks map.
      * @param previousChunks The previous chunks this terrain was in.
      */
     static void chunkUpdate(@NotNull Terrain terrain, @NotNull Set<Chunk> previousChunks) {
-        // Removing from previous chunks.
-        if (previousChunks.isEmpty()) {
-            var globalWorldChunk = new WorldChunk(terrain.world, globalChunk);
-            Set<Terrain> globalTerrains = chunks.get(globalWorldChunk);
-            globalTerrains.remove(terrain);
-            if (globalTerrains.isEmpty()) chunks.remove(globalWorldChunk);
+        updateChunkIndex(terrain, previousChunks);
+        callOnBoundsChange(terrain.world, previousChunks);
+        callOnBoundsChange(terrain);
+    }
+
+    /**
+     * Updates the terrain in the chunks map, after its diagonals have changed.
+     *
+     * @param terrain         The terrain to update in the chunks map.
+     * @param previousChunks  The previous chunks this terrain was in.
+     * @param previousMinimum The previous min diagonal of the terrain.
+     * @param previousMaximum The previous max diagonal of the terrain.
+     * @see #chunkUpdate(Terrain, Set)
+     */
+    static void chunkUpdate(@NotNull Terrain terrain, @NotNull Set<Chunk> previousChunks, @NotNull Coordinate previousMinimum, @NotNull Coordinate previousMaximum) {
+        updateChunkIndex(terrain, previousChunks);
+        callOnBoundsChange(terrain.world, previousMinimum, previousMaximum);
+        callOnBoundsChange(terrain);
+    }
+
+    private static void updateChunkIndex(@NotNull Terrain terrain, @NotNull Set<Chunk> previousChunks) {
+        indexOrCreate(terrain.world).update(terrain, previousChunks, terrain.chunks());
+        blockUsage.update(terrain);
+        leaderboards.update(terrain.owner);
+    }
+
+    /**
+     * Sorts the terrain again in the chunks it is in, after its priority has changed.
+     *
+     * @param terrain The terrain that had its priority changed.
+     */
+    static void priorityUpdate(@NotNull Terrain terrain) {
+        ChunkIndex index = index(terrain.world);
+        if (index != null) index.sort(terrain, terrain.chunks());
+    }
+
+    /**
+     * Invalidates the resolved flags of the sections the terrain is in, after its flags have changed.
+     *
+     * @param terrain The terrain that had its flags changed.
+     */
+    static void flagUpdate(@NotNull Terrain terrain) {
+        ChunkIndex index = index(terrain.world);
+        if (index != null) index.invalidateSections(terrain);
+    }
+
+    /**
+     * Counts a flag that was set or unset in the terrain's flags or in the flags of one of its members.
+     *
+     * @param terrain The terrain that had the flag set or unset.
+     * @param flagID  The ID of the flag.
+     * @param delta   1 if the flag was set, -1 if it was unset.
+     */
+    static void flagUsageUpdate(@NotNull Terrain terrain, @NotNull String flagID, int delta) {
+        ChunkIndex index = index(terrain.world);
+        if (index != null) index.flagUsage.update(flagID, delta);
+    }
+
+    /**
+     * Moves the terrain to its new owner in the owner index, after its owner has changed.
+     *
+     * @param terrain       The terrain that had its owner changed.
+     * @param previousOwner The previous owner of the terrain.
+     */
+    static void ownerUpdate(@NotNull Terrain terrain, @Nullable UUID previousOwner) {
+        indexOwner(terrain, previousOwner, false);
+        indexOwner(terrain, terrain.owner, true);
+        String name = TerrainerUtil.stripColor(terrain.name);
+        names.remove(terrain, name, previousOwner);
+        names.add(terrain, name, terrain.owner);
+        blockUsage.update(terrain);
+        leaderboards.update(previousOwner);
+        leaderboards.update(terrain.owner);
+    }
+
+    /**
+     * Moves the terrain to its new name in the name index, after its name has changed.
+     *
+     * @param terrain      The terrain that had its name changed.
+     * @param previousName The previous name of the terrain.
+     */
+    static void nameUpdate(@NotNull Terrain terrain, @NotNull String previousName) {
+        names.remove(terrain, TerrainerUtil.stripColor(previousName), terrain.owner);
+        names.add(terrain, TerrainerUtil.stripColor(terrain.name), terrain.owner);
+    }
+
+    /**
+     * Adds or removes the terrain from the player's entry in the relation index, after the player was added to or
+     * removed from the terrain's members or moderators.
+     *
+     * @param terrain The terrain that had its members or moderators changed.
+     * @param player  The player that was added or removed.
+     */
+    static void relationUpdate(@NotNull Terrain terrain, @NotNull UUID player) {
+        // The player might still be in the other set, in case they were both member and moderator.
+        if (terrain.members.view().contains(player) || terrain.moderators.view().contains(player)) {
+            link(terrainsByRelation, player, terrain);
         } else {
-            previousChunks.forEach(chunk -> {
-                var worldChunk = new WorldChunk(terrain.world, chunk);
-                Set<Terrain> chunkTerrains = chunks.get(worldChunk);
-                chunkTerrains.remove(terrain);
-                if (chunkTerrains.isEmpty()) chunks.remove(worldChunk);
-            });
+            unlink(terrainsByRelation, player, terrain);
         }
+        leaderboards.update(player);
+    }
 
-        // Adding it again.
-        if (terrain.chunks.isEmpty()) { // Chunks are empty when the terrain is global/huge.
-            chunks.computeIfAbsent(new WorldChunk(terrain.world, globalChunk), k -> ConcurrentHashMap.newKeySet(CHUNK_TERRAINSET_INITIAL_CAPACITY)).add(terrain);
+    private static void updateLeaderboards(@NotNull Terrain terrain) {
+        leaderboards.update(terrain.owner);
+        for (UUID moderator : terrain.moderators.view()) leaderboards.update(moderator);
+        for (UUID member : terrain.members.view()) leaderboards.update(member);
+    }
+
+    private static void indexOwner(@NotNull Terrain terrain, @Nullable UUID owner, boolean add) {
+        if (owner == null) {
+            if (add) consoleTerrains.add(terrain);
+            else consoleTerrains.remove(terrain);
+        } else if (add) {
+            link(terrainsByOwner, owner, terrain);
         } else {
-            terrain.chunks.forEach(chunk -> chunks.computeIfAbsent(new WorldChunk(terrain.world, chunk), k -> ConcurrentHashMap.newKeySet(CHUNK_TERRAINSET_INITIAL_CAPACITY)).add(terrain));
+            unlink(terrainsByOwner, owner, terrain);
         }
     }
 
+    private static void link(@NotNull Map<UUID, Set<Terrain>> index, @NotNull UUID key, @NotNull Terrain terrain) {
+        index.compute(key, (k, terrains) -> {
+            // Most players have few terrains.
+            if (terrains == null) terrains = ConcurrentHashMap.newKeySet(4);
+            terrains.add(terrain);
+            return terrains;
+        });
+    }
+
+    private static void unlink(@NotNull Map<UUID, Set<Terrain>> index, @NotNull UUID key, @NotNull Terrain terrain) {
+        index.computeIfPresent(key, (k, terrains) -> {
+            terrains.remove(terrain);
+            return terrains.isEmpty() ? null : terrains;
+        });
+    }
+
+    /**
+     * Finds the chunk index of the world.
+     *
+     * @param world The ID of the world.
+     * @return The index of the world, null if no terrains were ever added to it.
+     */
+    private static @Nullable ChunkIndex index(@NotNull UUID world) {
+        for (ChunkIndex index : indexes) {
+            if (index.world == world || index.world.equals(world)) return index;
+        }
+        return null;
+    }
+
+    private static @NotNull ChunkIndex indexOrCreate(@NotNull UUID world) {
+        ChunkIndex index = index(world);
+        if (index != null) return index;
+
+        synchronized (TerrainManager.class) {
+            index = index(world);
+            if (index != null) return index;
+
+            ChunkIndex[] newIndexes = Arrays.copyOf(indexes, indexes.length + 1);
+            newIndexes[indexes.length] = index = new ChunkIndex(world);
+            indexes = newIndexes;
+            return index;
+        }
+    }
+
+    /**
+     * A counter of changes to registered terrains. It is incremented every time a terrain is registered, unregistered or
+     * has any of its values changed, so results calculated from terrains can be cached and discarded once the epoch
+     * changes.
+     *
+     * @return The current terrain epoch.
+     */
+    public static long epoch() {
+        return epoch.get();
+    }
+
     /**
      * Gets the collection of registered terrains from all worlds.
      *
@@ -265,13 +457,16 @@ public final class TerrainManager {
     /**
      * Gets the terrains of a specific world.
      * <p>
-     * The provided set has the terrains sorted based on {@link #PRIORITY_COMPARATOR}.
+     * The provided stream has the terrains sorted based on {@link #PRIORITY_COMPARATOR}. The terrains are kept sorted by
+     * the world's index, so no sorting is done when calling this method.
      *
      * @param world The world of the terrains.
-     * @return An unmodifiable set with the terrains located in this world.
+     * @return A stream with the terrains located in this world.
      */
     public static @NotNull Stream<Terrain> terrains(@NotNull UUID world) {
-        return registeredTerrains.values().stream().filter(t -> world.equals(t.world())).sorted(PRIORITY_COMPARATOR);
+        ChunkIndex index = index(world);
+        if (index == null) return Stream.empty();
+        return Arrays.stream(index.terrains);
     }
 
     /**
@@ -310,32 +505,130 @@ public final class TerrainManager {
      * @return A {@link Collections#emptySet()} if no terrains were found, or a mutable set with the terrains containing the location.
      */
     public static @NotNull Set<Terrain> terrainsAt(@NotNull UUID world, int x, int y, int z) {
-        Set<Terrain> chunkTerrains = chunks.get(new WorldChunk(world, Chunk.fromBlockCoordinates(x, z)));
-        Set<Terrain> globalTerrains = chunks.get(new WorldChunk(world, globalChunk));
+        ChunkIndex index = index(world);
+        if (index == null || (index.globalTerrains.length == 0 && index.onlyGlobalAt(x, z))) return Collections.emptySet();
 
-        Set<Terrain> terrainsAt = null; // The result of the search.
+        var terrainsAt = new TerrainArraySet(2);
+        forEachTerrainAt(world, x, y, z, terrainsAt::append);
+        return terrainsAt.isEmpty() ? Collections.emptySet() : terrainsAt;
+    }
 
-        if (chunkTerrains != null) {
-            for (Terrain terrain : chunkTerrains)
-                if (terrain.isWithin(x, y, z)) {
-                    if (terrainsAt == null) terrainsAt = new TreeSet<>(PRIORITY_COMPARATOR);
-                    terrainsAt.add(terrain);
-                }
+    /**
+     * Collects the terrains of the first set that are not in the second set. Both sets must be sorted based on
+     * {@link #PRIORITY_COMPARATOR}, like the sets of {@link #terrainsAt(UUID, int, int, int)}, so the difference is
+     * found by merging them in a single pass, without hashing or copying the sets.
+     *
+     * @param terrains The terrains to collect if not in the other set.
+     * @param others   The terrains to leave out.
+     * @return A {@link Collections#emptySet()} if every terrain is in the other set, or a mutable set sorted by priority
+     * with the terrains only in the first set.
+     */
+    public static @NotNull Set<Terrain> difference(@NotNull Set<Terrain> terrains, @NotNull Set<Terrain> others) {
+        if (terrains.isEmpty()) return Collections.emptySet();
+
+        TerrainArraySet difference = null;
+        Iterator<Terrain> otherIterator = others.iterator();
+        Terrain other = otherIterator.hasNext() ? otherIterator.next() : null;
+
+        for (Terrain terrain : terrains) {
+            while (other != null && PRIORITY_COMPARATOR.compare(other, terrain) < 0) {
+                other = otherIterator.hasNext() ? otherIterator.next() : null;
+            }
+            if (terrain.equals(other)) continue;
+            if (difference == null) difference = new TerrainArraySet(terrains.size());
+            difference.append(terrain);
         }
-        if (globalTerrains != null) {
-            for (Terrain terrain : globalTerrains)
-                if (terrain.isWithin(x, y, z)) {
-                    if (terrainsAt == null) terrainsAt = new TreeSet<>(PRIORITY_COMPARATOR);
-                    terrainsAt.add(terrain);
+
+        return difference == null ? Collections.emptySet() : difference;
+    }
+
+    /**
+     * Walks through the terrains that have the provided coordinate within, in {@link #PRIORITY_COMPARATOR} order,
+     * without collecting them into a set.
+     * <p>
+     * Callers that only need to iterate the terrains once, and that usually stop at the first terrain with a flag set,
+     * should prefer this method over {@link #terrainsAt(UUID, int, int, int)}.
+     *
+     * @param world   The UUID of the world where the location resides.
+     * @param x       The X coordinate of the block.
+     * @param y       The Y coordinate of the block.
+     * @param z       The Z coordinate of the block.
+     * @param visitor The predicate to test each terrain at the location. Return false to stop walking.
+     * @return false if the visitor stopped the walk, true if every terrain at the location was visited.
+     */
+    public static boolean forEachTerrainAt(@NotNull UUID world, int x, int y, int z, @NotNull Predicate<Terrain> visitor) {
+        ChunkIndex index = index(world);
+        if (index == null) return true;
+
+        // Unclaimed blocks only have the world's terrains, which are already sorted and cover every block.
+        if (index.onlyGlobalAt(x, z)) {
+            for (Terrain terrain : index.globalTerrains) if (!visitor.test(terrain)) return false;
+            return true;
+        }
+
+        Terrain[] chunkTerrains = index.get(x >> 4, z >> 4);
+        if (chunkTerrains == null) chunkTerrains = ChunkIndex.EMPTY;
+        Terrain[] globalTerrains = index.globalTerrains;
+        LargeTerrainTree largeTerrains = index.largeTerrains;
+        // Large terrains are rarely at the location, so they're found one at a time instead of collected.
+        Terrain large = largeTerrains.next(x, y, z, null);
+        int c = 0, g = 0;
+
+        // Every source is sorted by priority, so merging them visits the terrains in order.
+        while (true) {
+            Terrain terrain = null;
+            int source = -1;
+
+            if (c < chunkTerrains.length) {
+                terrain = chunkTerrains[c];
+                source = 0;
+            }
+            if (g < globalTerrains.length && (terrain == null || PRIORITY_COMPARATOR.compare(globalTerrains[g], terrain) < 0)) {
+                terrain = globalTerrains[g];
+                source = 1;
+            }
+            if (large != null && (terrain == null || PRIORITY_COMPARATOR.compare(large, terrain) < 0)) {
+                terrain = large;
+                source = 2;
+            }
+
+            switch (source) {
+                case 0 -> c++;
+                case 1 -> g++;
+                case 2 -> large = largeTerrains.next(x, y, z, large);
+                default -> {
+                    return true;
                 }
+            }
+
+            // Large terrains are found already filtered by location.
+            if (source != 2 && !terrain.isWithin(x, y, z)) continue;
+            if (!visitor.test(terrain)) return false;
         }
+    }
 
-        return terrainsAt == null ? Collections.emptySet() : terrainsAt;
+    /**
+     * Searches for terrains whose diagonals intersect the box between the provided coordinates, inclusive.
+     * {@link WorldTerrain}s are not included, as they intersect every box.
+     * <p>
+     * This query looks up the index of terrains by region, so its cost does not depend on the amount of chunks in the
+     * box. It should be preferred over looking up the terrains of every chunk in the area.
+     *
+     * @param world The UUID of the world where the box resides.
+     * @param min   The minimum corner of the box.
+     * @param max   The maximum corner of the box.
+     * @return A mutable set with the terrains intersecting the box, in no particular order.
+     */
+    public static @NotNull Set<Terrain> terrainsIntersecting(@NotNull UUID world, @NotNull Coordinate min, @NotNull Coordinate max) {
+        var terrains = new HashSet<Terrain>();
+        ChunkIndex index = index(world);
+        if (index != null) index.collect(min, max, terrains);
+        return terrains;
     }
 
     /**
-     * Gets all terrains within the specified chunk. Some terrains might be so huge they are considered global, they are
-     * included in the iterable as well.
+     * Gets all terrains within the specified chunk. Terrains too big to be indexed by chunk are included if they
+     * intersect the chunk, and {@link WorldTerrain}s are always included.
      *
      * @param world  The UUID of the world where the chunk resides.
      * @param chunkX The X coordinate of the chunk.
@@ -343,22 +636,32 @@ public final class TerrainManager {
      * @return An unmodifiable iterable with all terrains that are in the chunk.
      */
     public static @NotNull Iterable<Terrain> terrainsAtChunk(@NotNull UUID world, int chunkX, int chunkZ) {
-        return terrainsAtChunk(new WorldChunk(world, new Chunk(chunkX, chunkZ)));
+        ChunkIndex index = index(world);
+        if (index == null) return Collections.emptySet();
+
+        Terrain[] chunkTerrains = index.get(chunkX, chunkZ);
+        if (chunkTerrains == null) chunkTerrains = ChunkIndex.EMPTY;
+        Iterable<Terrain> terrains = Iterables.concat(Arrays.asList(chunkTerrains), Arrays.asList(index.globalTerrains));
+
+        LargeTerrainTree largeTerrains = index.largeTerrains;
+        if (!largeTerrains.isEmpty()) {
+            var largeTerrainsInChunk = new ArrayList<Terrain>(2);
+            largeTerrains.collect(chunkX << 4, chunkZ << 4, (chunkX << 4) + 15, (chunkZ << 4) + 15, largeTerrainsInChunk);
+            if (!largeTerrainsInChunk.isEmpty()) terrains = Iterables.concat(terrains, largeTerrainsInChunk);
+        }
+
+        return Iterables.unmodifiableIterable(terrains);
     }
 
     /**
-     * Gets all terrains within the specified chunk. Some terrains might be so huge they are considered global, they are
-     * included in the iterable as well.
+     * Gets all terrains within the specified chunk. Terrains too big to be indexed by chunk are included if they
+     * intersect the chunk, and {@link WorldTerrain}s are always included.
      *
      * @param worldChunk The chunk to get terrains at.
      * @return An unmodifiable iterable with all terrains that are in the chunk.
      */
     public static @NotNull Iterable<Terrain> terrainsAtChunk(@NotNull WorldChunk worldChunk) {
-        Set<Terrain> chunkTerrains = chunks.get(worldChunk);
-        if (chunkTerrains == null) chunkTerrains = Collections.emptySet();
-        Set<Terrain> globalTerrains = chunks.get(new WorldChunk(worldChunk.world(), globalChunk));
-        if (globalTerrains == null) globalTerrains = Collections.emptySet();
-        return Iterables.unmodifiableIterable(Iterables.concat(chunkTerrains, globalTerrains));
+        return terrainsAtChunk(worldChunk.world(), worldChunk.chunk().x(), worldChunk.chunk().z());
     }
 
     /**
@@ -368,11 +671,109 @@ public final class TerrainManager {
      * @return A mutable list with the terrains that have this player as owner.
      */
     public static @NotNull List<Terrain> terrainsOf(@Nullable UUID owner) {
-        ArrayList<Terrain> terrainsOf = new ArrayList<>();
-        for (Terrain terrain : registeredTerrains.values()) {
-            if (Objects.equals(terrain.owner(), owner)) terrainsOf.add(terrain);
-        }
-        return terrainsOf;
+        Set<Terrain> owned = owner == null ? consoleTerrains : terrainsByOwner.get(owner);
+        return owned == null ? new ArrayList<>(0) : new ArrayList<>(owned);
+    }
+
+    /**
+     * Gets the number of terrains owned by a player, without copying them.
+     *
+     * @param owner The UUID of the player to check if owns the terrain.
+     * @return The amount of terrains that have this player as owner.
+     */
+    public static int terrainsOfCount(@Nullable UUID owner) {
+        Set<Terrain> owned = owner == null ? consoleTerrains : terrainsByOwner.get(owner);
+        return owned == null ? 0 : owned.size();
+    }
+
+    /**
+     * Gets the terrains with the specified name. Colours are ignored when comparing names.
+     *
+     * @param name The name of the terrains.
+     * @return A mutable list with the terrains that have this name.
+     */
+    public static @NotNull List<Terrain> terrainsNamed(@NotNull String name) {
+        return names.named(TerrainerUtil.stripColor(name));
+    }
+
+    /**
+     * Gets the terrains with names starting with the specified prefix, sorted by name. Colours are ignored when
+     * comparing names.
+     *
+     * @param owner  The owner of the terrains, null to get the terrains of every owner, including CONSOLE.
+     * @param prefix The prefix of the names.
+     * @return A mutable list with the terrains that have names starting with the prefix.
+     */
+    public static @NotNull List<Terrain> terrainsNamedStartingWith(@Nullable UUID owner, @NotNull String prefix) {
+        return names.startingWith(owner, TerrainerUtil.stripColor(prefix));
+    }
+
+    /**
+     * Gets the amount of blocks claimed by the terrains of an owner. {@link WorldTerrain}s are not taken into account.
+     * <p>
+     * The amount is kept up to date as terrains are added, removed, resized or transferred, so no terrains are iterated
+     * when calling this method, unless a claiming terrain is specified.
+     *
+     * @param owner    The owner of the terrains, null for CONSOLE.
+     * @param world    The world of the terrains, null to get the amount of every world.
+     * @param nested   Whether blocks covered by more than one terrain should be counted once for every terrain.
+     * @param claiming A terrain to take into account in place of the registered terrain with the same ID. Useful for
+     *                 checking limits when a terrain is being claimed or resized.
+     * @return The amount of blocks claimed by the owner.
+     */
+    public static long usedBlocks(@Nullable UUID owner, @Nullable UUID world, boolean nested, @Nullable Terrain claiming) {
+        return blockUsage.used(owner, world, nested, claiming);
+    }
+
+    /**
+     * Gets the player in a position of the ranking of players by amount of blocks claimed. The ranking is kept up to date
+     * as terrains change, so no scores are calculated when calling this method.
+     *
+     * @param position The position in the ranking, starting at 1.
+     * @param world    The world to rank the blocks claimed, null to rank the blocks claimed in every world.
+     * @param nested   Whether blocks covered by more than one terrain should be counted once for every terrain.
+     * @return The UUID of the player in the position, null if there's no player in the position.
+     * @see #usedBlocks(UUID, UUID, boolean, Terrain)
+     */
+    public static @Nullable UUID topUsedBlocks(int position, @Nullable UUID world, boolean nested) {
+        return leaderboards.blocks(Math.max(position - 1, 0), world, nested);
+    }
+
+    /**
+     * Gets the player in a position of the ranking of players by amount of terrains owned.
+     *
+     * @param position The position in the ranking, starting at 1.
+     * @param world    The world to rank the terrains owned, null to rank the terrains owned in every world.
+     * @return The UUID of the player in the position, null if there's no player in the position.
+     */
+    public static @Nullable UUID topUsedClaims(int position, @Nullable UUID world) {
+        return leaderboards.claims(Math.max(position - 1, 0), world);
+    }
+
+    /**
+     * Gets the player in a position of the ranking of players by amount of terrains they are associated with.
+     *
+     * @param position The position in the ranking, starting at 1.
+     * @return The UUID of the player in the position, null if there's no player in the position.
+     * @see #associatedTerrains(UUID)
+     */
+    public static @Nullable UUID topAssociatedTerrains(int position) {
+        return leaderboards.associated(Math.max(position - 1, 0));
+    }
+
+    /**
+     * Gets the terrains a player is associated with. A player is associated with a terrain if they're the owner, a
+     * moderator, or a member of it.
+     *
+     * @param player The UUID of the player.
+     * @return A mutable set with the terrains this player is associated with.
+     */
+    public static @NotNull Set<Terrain> associatedTerrains(@NotNull UUID player) {
+        Set<Terrain> owned = terrainsByOwner.get(player), related = terrainsByRelation.get(player);
+        HashSet<Terrain> associated = new HashSet<>((owned == null ? 0 : owned.size()) + (related == null ? 0 : related.size()));
+        if (owned != null) associated.addAll(owned);
+        if (related != null) associated.addAll(related);
+        return associated;
     }
 
     /**
@@ -405,12 +806,99 @@ public final class TerrainManager {
      * @return An entry with the terrain and the flag's data in the location, null if not found.
      */
     public static <T> Map.@Nullable Entry<Terrain, T> highestPriorityTerrainWithFlagAt(@NotNull Flag<T> flag, @NotNull UUID world, int x, int y, int z) {
-        // Terrain list is sorted by priority.
-        for (Terrain terrain : terrainsAt(world, x, y, z)) {
+        ChunkIndex index = index(world);
+        if (index == null) return null;
+
+        if (index.onlyGlobalAt(x, z)) {
+            for (Terrain terrain : index.globalTerrains) {
+                T data = terrain.flags().getData(flag);
+                if (data != null) return Map.entry(terrain, data);
+            }
+            return null;
+        }
+
+        // Sections covered whole by the same terrains have their flags resolved only once.
+        SectionFlagCache.Section section = section(index, x, y, z);
+        if (section != SectionFlagCache.EDGE) return section.resolve(flag);
+
+        SectionFlagCache.misses.increment();
+        FlagFinder<T> finder = FlagFinder.acquire(flag, null);
+        try {
+            forEachTerrainAt(world, x, y, z, finder);
+            return finder.terrain == null ? null : Map.entry(finder.terrain, finder.data);
+        } finally {
+            finder.release();
+        }
+    }
+
+    /**
+     * Gets the highest priority terrain that has the specified flag set with a value that's not null, for each of the
+     * provided blocks. This method only checks {@link Terrain#flags()}.
+     * <p>
+     * Blocks are grouped by chunk, so the terrains of each chunk and their flag data are looked up only once. This
+     * should be preferred over calling {@link #highestPriorityTerrainWithFlagAt(Flag, UUID, int, int, int)} for each
+     * block of events that affect many blocks at once, like explosions.
+     *
+     * @param flag   The flag to look for in the blocks.
+     * @param world  The UUID of the world where the blocks reside.
+     * @param blocks The X, Y and Z coordinates of each block, in sequence.
+     * @return A list with an entry with the terrain and the flag's data of each block, in the same order as the
+     * provided blocks. Entries are null for blocks where the flag was not found.
+     * @throws IllegalArgumentException If the length of the blocks array is not a multiple of 3.
+     */
+    public static <T> @NotNull List<Map.@Nullable Entry<Terrain, T>> highestPriorityTerrainsWithFlagAt(@NotNull Flag<T> flag, @NotNull UUID world, int @NotNull [] blocks) {
+        if (blocks.length % 3 != 0) throw new IllegalArgumentException("Blocks must be provided as X, Y and Z coordinates in sequence.");
+
+        var results = new ArrayList<Map.Entry<Terrain, T>>(blocks.length / 3);
+        ChunkIndex index = index(world);
+        if (index == null) {
+            results.addAll(Collections.nCopies(blocks.length / 3, null));
+            return results;
+        }
+
+        // The terrains with the flag set in each chunk, sorted by priority.
+        var chunks = new HashMap<Long, List<Map.Entry<Terrain, T>>>();
+
+        for (int i = 0; i < blocks.length; i += 3) {
+            int x = blocks[i], y = blocks[i + 1], z = blocks[i + 2];
+            long key = ChunkIndex.key(x >> 4, z >> 4);
+            List<Map.Entry<Terrain, T>> candidates = chunks.get(key);
+            if (candidates == null) chunks.put(key, candidates = terrainsWithFlagAtChunk(index, flag, x >> 4, z >> 4));
+
+            Map.Entry<Terrain, T> found = null;
+            for (Map.Entry<Terrain, T> candidate : candidates) {
+                if (candidate.getKey().isWithin(x, y, z)) {
+                    found = candidate;
+                    break;
+                }
+            }
+            results.add(found);
+        }
+
+        return results;
+    }
+
+    private static <T> @NotNull List<Map.Entry<Terrain, T>> terrainsWithFlagAtChunk(@NotNull ChunkIndex index, @NotNull Flag<T> flag, int chunkX, int chunkZ) {
+        List<Terrain> terrains;
+
+        if (index.onlyGlobalAtChunk(chunkX, chunkZ)) {
+            // The world's terrains are already sorted by priority.
+            terrains = Arrays.asList(index.globalTerrains);
+        } else {
+            terrains = new ArrayList<>();
+            Terrain[] chunkTerrains = index.get(chunkX, chunkZ);
+            if (chunkTerrains != null) terrains.addAll(Arrays.asList(chunkTerrains));
+            terrains.addAll(Arrays.asList(index.globalTerrains));
+            index.largeTerrains.collect(chunkX << 4, chunkZ << 4, (chunkX << 4) + 15, (chunkZ << 4) + 15, terrains);
+            terrains.sort(PRIORITY_COMPARATOR);
+        }
+
+        var terrainsWithFlag = new ArrayList<Map.Entry<Terrain, T>>(terrains.size());
+        for (Terrain terrain : terrains) {
             T data = terrain.flags().getData(flag);
-            if (data != null) return Map.entry(terrain, data);
+            if (data != null) terrainsWithFlag.add(Map.entry(terrain, data));
         }
-        return null;
+        return terrainsWithFlag;
     }
 
     /**
@@ -445,13 +933,13 @@ public final class TerrainManager {
      * @return An entry with the terrain and the flag's data in the location, null if not found.
      */
     public static <T> Map.@Nullable Entry<Terrain, T> highestPriorityTerrainWithFlagAt(@NotNull Flag<T> flag, @NotNull UUID player, @NotNull UUID world, int x, int y, int z) {
-        // Terrain list is sorted by priority.
-        for (Terrain terrain : terrainsAt(world, x, y, z)) {
-            T data = terrain.memberFlags().getData(player, flag); // Member-specific data takes priority.
-            if (data == null) data = terrain.flags().getData(flag);
-            if (data != null) return Map.entry(terrain, data);
+        FlagFinder<T> finder = FlagFinder.acquire(flag, player);
+        try {
+            forEachTerrainAt(world, x, y, z, finder);
+            return finder.terrain == null ? null : Map.entry(finder.terrain, finder.data);
+        } finally {
+            finder.release();
         }
-        return null;
     }
 
     /**
@@ -478,15 +966,97 @@ public final class TerrainManager {
      * @see #isFlagAllowedAt(Flag, UUID, UUID, int, int, int) Flags related to player actions should use this method instead, because it checks the member-specific data and the members list.
      */
     public static boolean isFlagAllowedAt(@NotNull Flag<Boolean> flag, @NotNull UUID world, int x, int y, int z) {
-        // Terrain list is sorted by priority.
-        for (Terrain terrain : terrainsAt(world, x, y, z)) {
-            Boolean state = terrain.flags().getData(flag);
-            if (state != null) return state;
+        ChunkIndex index = index(world);
+        if (index == null || index.flagUsage.isAlwaysAllowed(flag)) return true;
+
+        if (index.onlyGlobalAt(x, z)) {
+            for (Terrain terrain : index.globalTerrains) {
+                Boolean data = terrain.flags().getData(flag);
+                if (data != null) return data;
+            }
+            return true;
+        }
+
+        SectionFlagCache.Section section = section(index, x, y, z);
+        if (section != SectionFlagCache.EDGE) {
+            Map.Entry<Terrain, Boolean> found = section.resolve(flag);
+            return found == null || found.getValue();
         }
 
+        SectionFlagCache.misses.increment();
+        FlagFinder<Boolean> finder = FlagFinder.acquire(flag, null);
+        try {
+            forEachTerrainAt(world, x, y, z, finder);
+            return finder.data == null || finder.data;
+        } finally {
+            finder.release();
+        }
+    }
+
+    /**
+     * Whether a flag is allowed in every block of the world, because no terrain in the world has the flag set, not even
+     * for members, and no terrain answers a default value denying it. This takes constant time, so flags that are set
+     * nowhere can be resolved without looking up terrains.
+     *
+     * @param flag  The flag to test.
+     * @param world The UUID of the world.
+     * @return Whether {@link #isFlagAllowedAt(Flag, UUID, int, int, int)} would return true for every block of the
+     * world, and for every player.
+     */
+    public static boolean isFlagAlwaysAllowed(@NotNull Flag<Boolean> flag, @NotNull UUID world) {
+        ChunkIndex index = index(world);
+        return index == null || index.flagUsage.isAlwaysAllowed(flag);
+    }
+
+    /**
+     * Whether a flag is allowed in every block of every world, because no terrain has the flag set. See
+     * {@link #isFlagAlwaysAllowed(Flag, UUID)}.
+     *
+     * @param flag The flag to test.
+     * @return Whether the flag is allowed everywhere.
+     */
+    public static boolean isFlagAlwaysAllowed(@NotNull Flag<Boolean> flag) {
+        for (ChunkIndex index : indexes) if (!index.flagUsage.isAlwaysAllowed(flag)) return false;
         return true;
     }
 
+    /**
+     * Gets the cached section of the block, computing and caching it if absent.
+     *
+     * @return The section, or {@link SectionFlagCache#EDGE} if the flags of the block must be resolved per block.
+     */
+    private static @NotNull SectionFlagCache.Section section(@NotNull ChunkIndex index, int x, int y, int z) {
+        long key = SectionFlagCache.key(x >> 4, y >> 4, z >> 4);
+        SectionFlagCache.Section section = index.sections.get(key);
+        if (section != null) return section;
+
+        int version = index.sections.version();
+        Terrain[] terrains = index.coveringTerrains(x >> 4, y >> 4, z >> 4);
+        section = terrains == null ? SectionFlagCache.EDGE : new SectionFlagCache.Section(terrains);
+        index.sections.put(key, section, version);
+        return section;
+    }
+
+    /**
+     * The amount of flag checks answered by the section cache, without resolving the flag through the terrains at the
+     * location. Only flag checks that don't involve players are cached.
+     *
+     * @return The amount of cache hits since the server started.
+     */
+    public static long sectionCacheHits() {
+        return SectionFlagCache.hits.sum();
+    }
+
+    /**
+     * The amount of flag checks that had to be resolved through the terrains at the location, either because it was the
+     * first check of the flag in the section, or because the location is at the edge of a terrain.
+     *
+     * @return The amount of cache misses since the server started.
+     */
+    public static long sectionCacheMisses() {
+        return SectionFlagCache.misses.sum();
+    }
+
     /**
      * Determines whether a specific flag is allowed at a given location based on various conditions.
      * <p>
@@ -531,30 +1101,15 @@ public final class TerrainManager {
      * @return {@code true} if the flag is allowed at the specified location; {@code false} otherwise.
      */
     public static boolean isFlagAllowedAt(@NotNull Flag<Boolean> flag, @NotNull UUID player, @NotNull UUID world, int x, int y, int z) {
-        Integer foundPriority = null;
-
-        // Terrain list is sorted by priority.
-        for (Terrain terrain : terrainsAt(world, x, y, z)) {
-            // If the flag was already found, check if the player has relations to terrains in the location which have the same priority.
-            if (foundPriority != null && terrain.priority() != foundPriority) return false;
-            // If the player has any relations to terrains found at the location, return true.
-            if (hasAnyRelations(player, terrain)) return true;
-            if (foundPriority != null) continue;
-
-            // Check member specific flag first.
-            Boolean state = terrain.memberFlags().getData(player, flag);
-            if (state == null) state = terrain.flags().getData(flag);
-
-            if (state != null) {
-                // State found as false. Continue loop to check for relations with terrains with same priority.
-                if (!state) {
-                    foundPriority = terrain.priority();
-                    continue;
-                }
-                return true;
-            }
+        if (isFlagAlwaysAllowed(flag, world)) return true;
+
+        FlagTester tester = FlagTester.acquire(flag, player);
+        try {
+            if (forEachTerrainAt(world, x, y, z, tester)) return !tester.denied;
+            return tester.allowed;
+        } finally {
+            tester.release();
         }
-        return foundPriority == null;
     }
 
     /**
@@ -589,24 +1144,13 @@ public final class TerrainManager {
      * @see #getCollectionFlagDataAt(Flag, UUID, UUID, int, int, int, boolean) Flags related to player actions should use this method instead, because it checks the member-specific data.
      */
     public static <E> @NotNull List<E> getCollectionFlagDataAt(@NotNull Flag<? extends Collection<E>> flag, @NotNull UUID world, int x, int y, int z) {
-        List<E> collectionData = null;
-        Integer priorityFound = null;
-
-        // Terrain list is sorted by priority.
-        for (Terrain terrain : terrainsAt(world, x, y, z)) {
-            // Add elements to the collection only if this terrain is the same priority as the terrain that the flag was found.
-            if (priorityFound != null && priorityFound != terrain.priority()) break;
-
-            Collection<E> collection = terrain.flags().getData(flag);
-
-            if (collection == null) continue;
-            if (priorityFound == null) priorityFound = terrain.priority();
-            if (collection.isEmpty()) continue;
-            if (collectionData == null) collectionData = new ArrayList<>(collection);
-            else collectionData.addAll(collection);
+        CollectionFlagCollector<E> collector = CollectionFlagCollector.acquire(flag, null, false);
+        try {
+            forEachTerrainAt(world, x, y, z, collector);
+            return collector.result();
+        } finally {
+            collector.release();
         }
-
-        return collectionData == null ? Collections.emptyList() : collectionData;
     }
 
     /**
@@ -647,27 +1191,78 @@ public final class TerrainManager {
      * @return The data of the flags concatenated in a single collection.
      */
     public static <E> @NotNull List<E> getCollectionFlagDataAt(@NotNull Flag<? extends Collection<E>> flag, @NotNull UUID player, @NotNull UUID world, int x, int y, int z, boolean emptyIfPlayerHasRelations) {
-        List<E> collectionData = null;
-        Integer priorityFound = null;
-
-        // Terrain list is sorted by priority.
-        for (Terrain terrain : terrainsAt(world, x, y, z)) {
-            // Add elements to the collection only if this terrain is the same priority as the terrain that the flag was found.
-            if (priorityFound != null && priorityFound != terrain.priority()) break;
-            if (emptyIfPlayerHasRelations && hasAnyRelations(player, terrain)) return Collections.emptyList();
-
-            // Get member specific flag first.
-            Collection<E> collection = terrain.memberFlags().getData(player, flag);
-            if (collection == null) collection = terrain.flags().getData(flag);
+        CollectionFlagCollector<E> collector = CollectionFlagCollector.acquire(flag, player, emptyIfPlayerHasRelations);
+        try {
+            forEachTerrainAt(world, x, y, z, collector);
+            return collector.result();
+        } finally {
+            collector.release();
+        }
+    }
 
-            if (collection == null) continue;
-            if (priorityFound == null) priorityFound = terrain.priority();
-            if (collection.isEmpty()) continue;
-            if (collectionData == null) collectionData = new ArrayList<>(collection);
-            else collectionData.addAll(collection);
+    /**
+     * Gets the collections of data set in a flag on the specified location, without concatenating them.
+     * <p>
+     * Works the same as {@link #getCollectionFlagDataAt(Flag, UUID, UUID, int, int, int, boolean)}, but the
+     * collections set in the terrains with the highest priority are returned separately, as unmodifiable views of the
+     * collections stored in the flags.
+     *
+     * @param flag                      The flag to look for on the location.
+     * @param player                    The player to get member flags and check if they have relations.
+     * @param world                     The UUID of the world where the location resides.
+     * @param x                         The X coordinate of the block.
+     * @param y                         The Y coordinate of the block.
+     * @param z                         The Z coordinate of the block.
+     * @param emptyIfPlayerHasRelations Whether to return an empty list if the player has relations to the terrain with the highest priority.
+     * @param <E>                       The type of element in the collections.
+     * @return The non-empty collections set in the flags of the terrains with the highest priority.
+     */
+    @ApiStatus.Internal
+    public static <E> @NotNull List<Collection<E>> getCollectionsFlagDataAt(@NotNull Flag<? extends Collection<E>> flag, @NotNull UUID player, @NotNull UUID world, int x, int y, int z, boolean emptyIfPlayerHasRelations) {
+        CollectionFlagCollector<E> collector = CollectionFlagCollector.acquire(flag, player, emptyIfPlayerHasRelations);
+        try {
+            forEachTerrainAt(world, x, y, z, collector);
+            List<Collection<E>> collections = collector.collections();
+            if (collections.isEmpty()) return Collections.emptyList();
+            var views = new ArrayList<Collection<E>>(collections.size());
+            for (Collection<E> collection : collections) views.add(Collections.unmodifiableCollection(collection));
+            return views;
+        } finally {
+            collector.release();
         }
+    }
 
-        return collectionData == null ? Collections.emptyList() : collectionData;
+    /**
+     * Applies a function to the collections of data set in a flag on the specified location, without copying or
+     * concatenating them.
+     * <p>
+     * This is the allocation free form of
+     * {@link #getCollectionsFlagDataAt(Flag, UUID, UUID, int, int, int, boolean)}, used by protections that cache data
+     * derived from the collections by their identity.
+     *
+     * @param flag                      The flag to look for on the location.
+     * @param player                    The player to get member flags and check if they have relations.
+     * @param world                     The UUID of the world where the location resides.
+     * @param x                         The X coordinate of the block.
+     * @param y                         The Y coordinate of the block.
+     * @param z                         The Z coordinate of the block.
+     * @param emptyIfPlayerHasRelations Whether to give an empty list if the player has relations to the terrain with the highest priority.
+     * @param function                  The function to apply to the collections.
+     * @param <E>                       The type of element in the collections.
+     * @param <R>                       The type of the result of the function.
+     * @return The result of the function.
+     * @apiNote The list and the collections given to the function are the ones used internally, so the function must
+     * not modify them, and must not keep a reference to the list, which is reused once the function returns.
+     */
+    @ApiStatus.Internal
+    public static <E, R> R applyToCollectionsFlagDataAt(@NotNull Flag<? extends Collection<E>> flag, @NotNull UUID player, @NotNull UUID world, int x, int y, int z, boolean emptyIfPlayerHasRelations, @NotNull Function<? super List<Collection<E>>, R> function) {
+        CollectionFlagCollector<E> collector = CollectionFlagCollector.acquire(flag, player, emptyIfPlayerHasRelations);
+        try {
+            forEachTerrainAt(world, x, y, z, collector);
+            return function.apply(collector.collections());
+        } finally {
+            collector.release();
+        }
     }
 
     /**
@@ -705,25 +1300,13 @@ public final class TerrainManager {
      * @see #getMapFlagDataAt(Flag, UUID, UUID, int, int, int, boolean, Collection) Flags related to player actions should use this method instead, because it checks the member-specific data.
      */
     public static <K, V> @NotNull Map<K, V> getMapFlagDataAt(@NotNull Flag<? extends Map<K, V>> flag, @NotNull UUID world, int x, int y, int z, @NotNull Collection<Terrain> exclusions) {
-        Map<K, V> mapData = null;
-        Integer priorityFound = null;
-
-        // Terrain list is sorted by priority.
-        for (Terrain terrain : terrainsAt(world, x, y, z)) {
-            if (exclusions.contains(terrain)) continue;
-            // Add elements to the map only if this terrain is the same priority as the terrain that the flag was found.
-            if (priorityFound != null && priorityFound != terrain.priority()) break;
-
-            Map<K, V> map = terrain.flags().getData(flag);
-
-            if (map == null) continue;
-            if (priorityFound == null) priorityFound = terrain.priority();
-            if (map.isEmpty()) continue;
-            if (mapData == null) mapData = new HashMap<>(map);
-            else mapData.putAll(map);
+        MapFlagCollector<K, V> collector = MapFlagCollector.acquire(flag, null, false, exclusions);
+        try {
+            forEachTerrainAt(world, x, y, z, collector);
+            return collector.result();
+        } finally {
+            collector.release();
         }
-
-        return mapData == null ? Collections.emptyMap() : mapData;
     }
 
     /**
@@ -767,28 +1350,13 @@ public final class TerrainManager {
      * @return The data of the flags concatenated in a single map.
      */
     public static <K, V> @NotNull Map<K, V> getMapFlagDataAt(@NotNull Flag<? extends Map<K, V>> flag, @NotNull UUID player, @NotNull UUID world, int x, int y, int z, boolean emptyIfPlayerHasRelations, @NotNull Collection<Terrain> exclusions) {
-        Map<K, V> mapData = null;
-        Integer priorityFound = null;
-
-        // Terrain list is sorted by priority.
-        for (Terrain terrain : terrainsAt(world, x, y, z)) {
-            if (exclusions.contains(terrain)) continue;
-            // Add elements to the map only if this terrain is the same priority as the terrain that the flag was found.
-            if (priorityFound != null && priorityFound != terrain.priority()) break;
-            if (emptyIfPlayerHasRelations && hasAnyRelations(player, terrain)) return Collections.emptyMap();
-
-            // Get member specific flag first.
-            Map<K, V> map = terrain.memberFlags().getData(player, flag);
-            if (map == null) map = terrain.flags().getData(flag);
-
-            if (map == null) continue;
-            if (priorityFound == null) priorityFound = terrain.priority();
-            if (map.isEmpty()) continue;
-            if (mapData == null) mapData = new HashMap<>(map);
-            else mapData.putAll(map);
+        MapFlagCollector<K, V> collector = MapFlagCollector.acquire(flag, player, emptyIfPlayerHasRelations, exclusions);
+        try {
+            forEachTerrainAt(world, x, y, z, collector);
+            return collector.result();
+        } finally {
+            collector.release();
         }
-
-        return mapData == null ? Collections.emptyMap() : mapData;
     }
 
     private static boolean hasAnyRelations(@NotNull UUID player, @NotNull Terrain terrain) {
@@ -988,6 +1556,72 @@ public final class TerrainManager {
         onFlagUnsetListeners.add(onFlagUnset);
     }
 
+    /**
+     * Adds a runnable that will be run once a flag starts or stops being set in any world, or once a world starts or
+     * stops having terrains that use default flag values. This can be run many times in a row, for example while
+     * terrains are loaded, so listeners should postpone heavy work.
+     *
+     * @param onFlagUsageChange The listener for changes of {@link #isFlagAlwaysAllowed(Flag)}.
+     */
+    @ApiStatus.Internal
+    public static void setOnFlagUsageChangeListener(@NotNull Runnable onFlagUsageChange) {
+        onFlagUsageChangeListeners.add(onFlagUsageChange);
+    }
+
+    static void callOnFlagUsageChange() {
+        for (Runnable listener : onFlagUsageChangeListeners) listener.run();
+    }
+
+    /**
+     * Adds a listener that will be run once a terrain is added, removed or has its shape changed, with the area where
+     * the terrains found at a block might've changed. When a terrain changes shape, the listener is run with both the
+     * area it was in and the area it is now in.
+     *
+     * @param onBoundsChange The listener for changes of which terrains are at a block.
+     */
+    @ApiStatus.Internal
+    public static void setOnBoundsChangeListener(@NotNull BoundsChangeListener onBoundsChange) {
+        onBoundsChangeListeners.add(onBoundsChange);
+    }
+
+    private static void callOnBoundsChange(@NotNull Terrain terrain) {
+        callOnBoundsChange(terrain.world, terrain.minDiagonal(), terrain.maxDiagonal());
+    }
+
+    private static void callOnBoundsChange(@NotNull UUID world, @NotNull Coordinate min, @NotNull Coordinate max) {
+        // WorldTerrain diagonals are at the limits of int, so they cover the whole world.
+        callOnBoundsChange(world, (int) Math.floor(min.x()), (int) Math.floor(min.z()), (int) Math.floor(max.x()), (int) Math.floor(max.z()));
+    }
+
+    /**
+     * Calls the listeners with the area of the chunks, for when the previous diagonals of a terrain are unknown.
+     */
+    private static void callOnBoundsChange(@NotNull UUID world, @NotNull Set<Chunk> chunks) {
+        if (onBoundsChangeListeners.isEmpty()) return;
+        if (chunks instanceof ChunkRange range) {
+            callOnBoundsChange(world, range.minX() << 4, range.minZ() << 4, (range.maxX() << 4) + 15, (range.maxZ() << 4) + 15);
+            return;
+        }
+        // Terrains with too many chunks have no chunks, so they might be anywhere in the world.
+        if (chunks.isEmpty()) {
+            callOnBoundsChange(world, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            return;
+        }
+
+        int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (Chunk chunk : chunks) {
+            minX = Math.min(minX, chunk.x());
+            minZ = Math.min(minZ, chunk.z());
+            maxX = Math.max(maxX, chunk.x());
+            maxZ = Math.max(maxZ, chunk.z());
+        }
+        callOnBoundsChange(world, minX << 4, minZ << 4, (maxX << 4) + 15, (maxZ << 4) + 15);
+    }
+
+    private static void callOnBoundsChange(@NotNull UUID world, int minX, int minZ, int maxX, int maxZ) {
+        for (BoundsChangeListener listener : onBoundsChangeListeners) listener.onBoundsChange(world, minX, minZ, maxX, maxZ);
+    }
+
     private static boolean callOnAdd(@NotNull Terrain terrain) {
         var event = new ITerrainAddEvent() {
             @Override
@@ -1106,4 +1740,288 @@ public final class TerrainManager {
 
     record FlagSetResult<T>(boolean cancel, T newData) {
     }
+
+    /**
+     * A listener of changes of which terrains are at the blocks of an area.
+     */
+    @ApiStatus.Internal
+    @FunctionalInterface
+    public interface BoundsChangeListener {
+        /**
+         * Called once terrains are added, removed or change shape in the area. Coordinates are inclusive block
+         * coordinates.
+         *
+         * @param world The UUID of the world where the area resides.
+         * @param minX  The min X coordinate of the area.
+         * @param minZ  The min Z coordinate of the area.
+         * @param maxX  The max X coordinate of the area.
+         * @param maxZ  The max Z coordinate of the area.
+         */
+        void onBoundsChange(@NotNull UUID world, int minX, int minZ, int maxX, int maxZ);
+    }
+
+    /**
+     * The reusable visitors of a thread. A visitor is only reused when it's not in use, because a query can be made by
+     * another query's visitor, such as through flag events or default values, and then gets a new visitor.
+     */
+    private static final class Visitors {
+        private final @NotNull FlagFinder<?> finder = new FlagFinder<>();
+        private final @NotNull FlagTester tester = new FlagTester();
+        private final @NotNull CollectionFlagCollector<?> collectionCollector = new CollectionFlagCollector<>();
+        private final @NotNull MapFlagCollector<?, ?> mapCollector = new MapFlagCollector<>();
+    }
+
+    /**
+     * Finds the highest priority terrain with data for the flag. Member-specific data takes priority, if a player is
+     * provided.
+     */
+    private static final class FlagFinder<T> implements Predicate<Terrain> {
+        private @Nullable Flag<T> flag;
+        private @Nullable UUID player;
+        private @Nullable Terrain terrain;
+        private @Nullable T data;
+        private boolean inUse = false;
+
+        @SuppressWarnings("unchecked")
+        private static <T> @NotNull FlagFinder<T> acquire(@NotNull Flag<T> flag, @Nullable UUID player) {
+            FlagFinder<T> finder = (FlagFinder<T>) visitors.get().finder;
+            if (finder.inUse) finder = new FlagFinder<>();
+            finder.inUse = true;
+            finder.flag = flag;
+            finder.player = player;
+            return finder;
+        }
+
+        /**
+         * Clears the references of the walk, so the visitor can be reused and doesn't retain terrains.
+         */
+        private void release() {
+            flag = null;
+            player = null;
+            terrain = null;
+            data = null;
+            inUse = false;
+        }
+
+        @Override
+        public boolean test(@NotNull Terrain terrain) {
+            Flag<T> flag = Objects.requireNonNull(this.flag);
+            T data = player == null ? null : terrain.memberFlags().getData(player, flag);
+            if (data == null) data = terrain.flags().getData(flag);
+            if (data == null) return true;
+
+            this.terrain = terrain;
+            this.data = data;
+            return false;
+        }
+    }
+
+    /**
+     * Tests a flag for a player, stopping the walk once the player is known to be allowed or denied.
+     */
+    private static final class FlagTester implements Predicate<Terrain> {
+        private @Nullable Flag<Boolean> flag;
+        private @Nullable UUID player;
+        private boolean denied;
+        private int deniedPriority;
+        private boolean allowed;
+        private boolean inUse = false;
+
+        private static @NotNull FlagTester acquire(@NotNull Flag<Boolean> flag, @NotNull UUID player) {
+            FlagTester tester = visitors.get().tester;
+            if (tester.inUse) tester = new FlagTester();
+            tester.inUse = true;
+            tester.flag = flag;
+            tester.player = player;
+            tester.denied = false;
+            tester.allowed = false;
+            return tester;
+        }
+
+        private void release() {
+            flag = null;
+            player = null;
+            inUse = false;
+        }
+
+        @Override
+        public boolean test(@NotNull Terrain terrain) {
+            Flag<Boolean> flag = Objects.requireNonNull(this.flag);
+            UUID player = Objects.requireNonNull(this.player);
+
+            // If the flag was already found, check if the player has relations to terrains in the location which have the same priority.
+            if (denied && terrain.priority() != deniedPriority) {
+                allowed = false;
+                return false;
+            }
+            // If the player has any relations to terrains found at the location, the flag is allowed.
+            if (hasAnyRelations(player, terrain)) {
+                allowed = true;
+                return false;
+            }
+            if (denied) return true;
+
+            // Check member specific flag first.
+            Boolean state = terrain.memberFlags().getData(player, flag);
+            if (state == null) state = terrain.flags().getData(flag);
+            if (state == null) return true;
+
+            // State found as false. Continue walking to check for relations with terrains with same priority.
+            if (!state) {
+                denied = true;
+                deniedPriority = terrain.priority();
+                return true;
+            }
+
+            allowed = true;
+            return false;
+        }
+    }
+
+    /**
+     * Collects the collections set in the flag of the terrains with the highest priority.
+     */
+    private static final class CollectionFlagCollector<E> implements Predicate<Terrain> {
+        /**
+         * The collections found, reused between walks.
+         */
+        private final @NotNull ArrayList<Collection<E>> collections = new ArrayList<>(4);
+        private @Nullable Flag<? extends Collection<E>> flag;
+        private @Nullable UUID player;
+        private boolean emptyIfPlayerHasRelations;
+        private boolean found;
+        private int priorityFound;
+        private boolean hasRelations;
+        private boolean inUse = false;
+
+        @SuppressWarnings("unchecked")
+        private static <E> @NotNull CollectionFlagCollector<E> acquire(@NotNull Flag<? extends Collection<E>> flag, @Nullable UUID player, boolean emptyIfPlayerHasRelations) {
+            CollectionFlagCollector<E> collector = (CollectionFlagCollector<E>) visitors.get().collectionCollector;
+            if (collector.inUse) collector = new CollectionFlagCollector<>();
+            collector.inUse = true;
+            collector.flag = flag;
+            collector.player = player;
+            collector.emptyIfPlayerHasRelations = emptyIfPlayerHasRelations;
+            collector.found = false;
+            collector.hasRelations = false;
+            return collector;
+        }
+
+        private void release() {
+            flag = null;
+            player = null;
+            collections.clear();
+            inUse = false;
+        }
+
+        @Override
+        public boolean test(@NotNull Terrain terrain) {
+            Flag<? extends Collection<E>> flag = Objects.requireNonNull(this.flag);
+
+            // Add elements to the collection only if this terrain is the same priority as the terrain that the flag was found.
+            if (found && priorityFound != terrain.priority()) return false;
+            if (player != null && emptyIfPlayerHasRelations && hasAnyRelations(player, terrain)) {
+                hasRelations = true;
+                return false;
+            }
+
+            // Get member specific flag first.
+            Collection<E> collection = player == null ? null : terrain.memberFlags().getData(player, flag);
+            if (collection == null) collection = terrain.flags().getData(flag);
+
+            if (collection == null) return true;
+            if (!found) {
+                found = true;
+                priorityFound = terrain.priority();
+            }
+            if (collection.isEmpty()) return true;
+            collections.add(collection);
+            return true;
+        }
+
+        private @NotNull List<E> result() {
+            if (collections.isEmpty() || hasRelations) return Collections.emptyList();
+            var data = new ArrayList<E>(collections.get(0));
+            for (int i = 1; i < collections.size(); i++) data.addAll(collections.get(i));
+            return data;
+        }
+
+        /**
+         * @return The reused list of collections found, or an empty list if the player has relations.
+         */
+        private @NotNull List<Collection<E>> collections() {
+            return hasRelations ? Collections.emptyList() : collections;
+        }
+    }
+
+    /**
+     * Concatenates the maps set in the flag of the terrains with the highest priority.
+     */
+    private static final class MapFlagCollector<K, V> implements Predicate<Terrain> {
+        private @Nullable Flag<? extends Map<K, V>> flag;
+        private @Nullable UUID player;
+        private boolean emptyIfPlayerHasRelations;
+        private @NotNull Collection<Terrain> exclusions = Collections.emptySet();
+        private @Nullable Map<K, V> data;
+        private boolean found;
+        private int priorityFound;
+        private boolean hasRelations;
+        private boolean inUse = false;
+
+        @SuppressWarnings("unchecked")
+        private static <K, V> @NotNull MapFlagCollector<K, V> acquire(@NotNull Flag<? extends Map<K, V>> flag, @Nullable UUID player, boolean emptyIfPlayerHasRelations, @NotNull Collection<Terrain> exclusions) {
+            MapFlagCollector<K, V> collector = (MapFlagCollector<K, V>) visitors.get().mapCollector;
+            if (collector.inUse) collector = new MapFlagCollector<>();
+            collector.inUse = true;
+            collector.flag = flag;
+            collector.player = player;
+            collector.emptyIfPlayerHasRelations = emptyIfPlayerHasRelations;
+            collector.exclusions = exclusions;
+            collector.found = false;
+            collector.hasRelations = false;
+            return collector;
+        }
+
+        /**
+         * Clears the references of the walk. The map of the result is not reused, because it's returned to the caller.
+         */
+        private void release() {
+            flag = null;
+            player = null;
+            exclusions = Collections.emptySet();
+            data = null;
+            inUse = false;
+        }
+
+        @Override
+        public boolean test(@NotNull Terrain terrain) {
+            Flag<? extends Map<K, V>> flag = Objects.requireNonNull(this.flag);
+
+            if (exclusions.contains(terrain)) return true;
+            // Add elements to the map only if this terrain is the same priority as the terrain that the flag was found.
+            if (found && priorityFound != terrain.priority()) return false;
+            if (player != null && emptyIfPlayerHasRelations && hasAnyRelations(player, terrain)) {
+                hasRelations = true;
+                return false;
+            }
+
+            // Get member specific flag first.
+            Map<K, V> map = player == null ? null : terrain.memberFlags().getData(player, flag);
+            if (map == null) map = terrain.flags().getData(flag);
+
+            if (map == null) return true;
+            if (!found) {
+                found = true;
+                priorityFound = terrain.priority();
+            }
+            if (map.isEmpty()) return true;
+            if (data == null) data = new HashMap<>(map);
+            else data.putAll(map);
+            return true;
+        }
+
+        private @NotNull Map<K, V> result() {
+            return data == null || hasRelations ? Collections.emptyMap() : data;
+        }
+    }
 }
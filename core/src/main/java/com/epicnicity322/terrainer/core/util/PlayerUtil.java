@@ -24,7 +24,6 @@ import com.epicnicity322.terrainer.core.Terrainer;
 import com.epicnicity322.terrainer.core.config.Configurations;
 import com.epicnicity322.terrainer.core.flag.Flags;
 import com.epicnicity322.terrainer.core.location.Coordinate;
-import com.epicnicity322.terrainer.core.location.WorldChunk;
 import com.epicnicity322.terrainer.core.location.WorldCoordinate;
 import com.epicnicity322.terrainer.core.terrain.Terrain;
 import com.epicnicity322.terrainer.core.terrain.TerrainManager;
@@ -215,7 +214,8 @@ public abstract class PlayerUtil<P extends R, R> {
         if (!hasPermission(player, "terrainer.bypass.limit.claims")) {
             int maxClaims;
             // If the player doesn't own the terrain and is already at claim limit, return.
-            if (TerrainManager.terrainsOf(owner).stream().noneMatch(t -> terrain.id().equals(t.id())) && claimedTerrains(owner, world) >= (maxClaims = claimLimit(player))) {
+            Terrain registered = TerrainManager.terrainByID(terrain.id());
+            if ((registered == null || !owner.equals(registered.owner())) && claimedTerrains(owner, world) >= (maxClaims = claimLimit(player))) {
                 return new ClaimResponse<>(ClaimResponseType.CLAIM_LIMIT_REACHED, maxClaims);
             }
         }
@@ -258,13 +258,11 @@ public abstract class PlayerUtil<P extends R, R> {
     }
 
     private @NotNull Set<Terrain> overlappingTerrains(@NotNull Terrain terrain) {
-        if (terrain.chunks().isEmpty()) return Collections.emptySet();
+        if (terrain instanceof WorldTerrain) return Collections.emptySet();
 
-        HashSet<Terrain> overlapping = new HashSet<>();
-
-        terrain.chunks().forEach(chunk -> TerrainManager.terrainsAtChunk(terrain.world(), chunk.x(), chunk.z()).forEach(t -> {
-            if (!t.id().equals(terrain.id()) && t.isOverlapping(terrain)) overlapping.add(t);
-        }));
+        Set<Terrain> overlapping = TerrainManager.terrainsIntersecting(terrain.world(), terrain.minDiagonal(), terrain.maxDiagonal());
+        // The intersecting terrains are only candidates, since terrains might not be cuboid shaped.
+        overlapping.removeIf(t -> t.id().equals(terrain.id()) || !t.isOverlapping(terrain));
         return overlapping;
     }
 
@@ -297,91 +295,7 @@ public abstract class PlayerUtil<P extends R, R> {
      * @return The amount of blocks this player has claimed.
      */
     private long claimedBlocks(@Nullable UUID player, @UnknownNullability UUID world, @Nullable Terrain claimingTerrain) {
-        long usedBlocks = 0;
-        Iterator<Terrain> terrains = perWorldBlockLimit.get() ? TerrainManager.terrains(Objects.requireNonNull(world)).iterator() : TerrainManager.allTerrains().iterator();
-
-        // Getting areas of all terrains owned by player.
-        if (nestedTerrainsCountTowardsBlockLimit.get()) {
-            while (terrains.hasNext()) {
-                Terrain terrain = terrains.next();
-                if (!Objects.equals(terrain.owner(), player)) continue;
-                // Let specified instance take priority.
-                if (claimingTerrain != null && terrain.id().equals(claimingTerrain.id())) continue;
-
-                usedBlocks += (long) terrain.area();
-            }
-
-            if (claimingTerrain != null) usedBlocks += (long) claimingTerrain.area();
-
-            return usedBlocks;
-        }
-
-        // Getting the total amount of claimed blocks without duplicates.
-        var events = new ArrayList<int[]>();
-
-        while (terrains.hasNext()) {
-            Terrain terrain = terrains.next();
-            if (!Objects.equals(terrain.owner(), player)) continue;
-            if (claimingTerrain != null && terrain.id().equals(claimingTerrain.id())) {
-                addEvents(events, claimingTerrain); // Use specified instance.
-                claimingTerrain = null;
-                continue;
-            }
-
-            addEvents(events, terrain);
-        }
-
-        if (claimingTerrain != null) addEvents(events, claimingTerrain);
-
-        if (events.isEmpty()) return 0;
-
-        events.sort(Comparator.comparingInt(o -> o[0]));
-
-        var activeIntervals = new TreeMap<Integer, Integer>();
-        int prevX = events.getFirst()[0];
-
-        for (int[] event : events) {
-            int currX = event[0];
-            int width = currX - prevX;
-
-            if (!activeIntervals.isEmpty()) usedBlocks += (long) (coveredHeight(activeIntervals) * width);
-
-            updateActiveIntervals(activeIntervals, event[1], event[2], event[3]);
-            prevX = currX;
-        }
-
-        return usedBlocks;
-    }
-
-    private void addEvents(@NotNull ArrayList<int[]> events, @NotNull Terrain terrain) {
-        Coordinate max = terrain.maxDiagonal(), min = terrain.minDiagonal();
-
-        // MaxZ and MaxX offset by 1 to account for Minecraft coordinate system.
-        events.add(new int[]{(int) min.x(), (int) min.z(), (int) max.z() + 1, 1});
-        events.add(new int[]{(int) max.x() + 1, (int) min.z(), (int) max.z() + 1, -1});
-    }
-
-    private void updateActiveIntervals(@NotNull TreeMap<Integer, Integer> activeIntervals, int z1, int z2, int type) {
-        activeIntervals.put(z1, activeIntervals.getOrDefault(z1, 0) + type);
-        activeIntervals.put(z2, activeIntervals.getOrDefault(z2, 0) - type);
-
-        if (activeIntervals.get(z1) == 0) activeIntervals.remove(z1);
-        if (activeIntervals.get(z2) == 0) activeIntervals.remove(z2);
-    }
-
-    private double coveredHeight(@NotNull TreeMap<Integer, Integer> intervals) {
-        int coveredHeight = 0;
-        int activeCount = 0;
-        int prevZ = -1;
-
-        for (Map.Entry<Integer, Integer> entry : intervals.entrySet()) {
-            int currZ = entry.getKey();
-            if (activeCount > 0 && prevZ != -1) coveredHeight += currZ - prevZ;
-            activeCount += entry.getValue();
-            prevZ = currZ;
-        }
-
-        return coveredHeight;
+        return TerrainManager.usedBlocks(player, perWorldBlockLimit.get() ? Objects.requireNonNull(world) : null, nestedTerrainsCountTowardsBlockLimit.get(), claimingTerrain);
     }
 
     /**
@@ -423,6 +337,30 @@ public abstract class PlayerUtil<P extends R, R> {
      */
     public abstract void setBoughtBlockLimit(@NotNull P player, long blockLimit);
 
+    /**
+     * Gets the player in a position of the ranking of players by amount of blocks claimed, counting blocks the same way
+     * {@link #claimedBlocks(UUID, UUID)} does.
+     *
+     * @param position The position in the ranking, starting at 1.
+     * @param world    The world of the ranking, null for every world. Irrelevant if Per World Block Limit is disabled in config.
+     * @return The player in the position, null if there's no player in the position.
+     */
+    public @Nullable UUID topClaimedBlocks(int position, @Nullable UUID world) {
+        return TerrainManager.topUsedBlocks(position, perWorldBlockLimit.get() ? world : null, nestedTerrainsCountTowardsBlockLimit.get());
+    }
+
+    /**
+     * Gets the player in a position of the ranking of players by amount of terrains claimed, counting terrains the same
+     * way {@link #claimedTerrains(UUID, UUID)} does.
+     *
+     * @param position The position in the ranking, starting at 1.
+     * @param world    The world of the ranking, null for every world. Irrelevant if Per World Claim Limit is disabled in config.
+     * @return The player in the position, null if there's no player in the position.
+     */
+    public @Nullable UUID topClaimedTerrains(int position, @Nullable UUID world) {
+        return TerrainManager.topUsedClaims(position, perWorldClaimLimit.get() ? world : null);
+    }
+
     /**
      * Gets the number of terrains the specified player owns.
      *
@@ -431,12 +369,12 @@ public abstract class PlayerUtil<P extends R, R> {
      * @return The amount of terrains this player has claimed.
      */
     public int claimedTerrains(@Nullable UUID player, @UnknownNullability UUID world) {
+        if (!perWorldClaimLimit.get()) return TerrainManager.terrainsOfCount(player);
+        Objects.requireNonNull(world);
         int claimed = 0;
-        Iterator<Terrain> terrains = perWorldClaimLimit.get() ? TerrainManager.terrains(Objects.requireNonNull(world)).iterator() : TerrainManager.allTerrains().iterator();
 
-        while (terrains.hasNext()) {
-            Terrain terrain = terrains.next();
-            if (Objects.equals(terrain.owner(), player)) claimed++;
+        for (Terrain terrain : TerrainManager.terrainsOf(player)) {
+            if (world.equals(terrain.world())) claimed++;
         }
 
         return claimed;
@@ -645,9 +583,11 @@ public abstract class PlayerUtil<P extends R, R> {
         for (Terrain terrain : new ArrayList<>(terrains)) {
             if (!hasInfoPermission(player, terrain)) terrains.remove(terrain); // Show only allowed terrains.
 
-            terrain.chunks().forEach(chunk -> TerrainManager.terrainsAtChunk(new WorldChunk(terrain.world(), chunk)).forEach(t1 -> {
+            if (terrain instanceof WorldTerrain) continue;
+
+            for (Terrain t1 : TerrainManager.terrainsIntersecting(terrain.world(), terrain.minDiagonal(), terrain.maxDiagonal())) {
                 if (terrain != t1 && terrain.isOverlapping(t1) && hasInfoPermission(player, t1)) terrains.add(t1);
-            }));
+            }
         }
 
         return terrains;
@@ -28,6 +28,37 @@ public final class TerrainerUtil {
     private TerrainerUtil() {
     }
 
+    /**
+     * Removes the minecraft colour and formatting codes from the string, the same way Bukkit's
+     * {@code ChatColor.stripColor(String)} does.
+     *
+     * @param string The string to strip the colours.
+     * @return The string without colour codes.
+     */
+    public static @NotNull String stripColor(@NotNull String string) {
+        int index = string.indexOf('\u00A7');
+        if (index == -1) return string;
+
+        StringBuilder stripped = new StringBuilder(string.length());
+        int length = string.length();
+        int start = 0;
+
+        while (index != -1) {
+            if (index + 1 < length && isColorCode(string.charAt(index + 1))) {
+                stripped.append(string, start, index);
+                start = index + 2;
+            }
+            index = string.indexOf('\u00A7', index + 1);
+        }
+
+        return stripped.append(string, start, length).toString();
+    }
+
+    private static boolean isColorCode(char c) {
+        c = Character.toLowerCase(c);
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'k' && c <= 'o') || c == 'r' || c == 'x';
+    }
+
     public static <T> @NotNull String listToString(@NotNull Collection<T> list, @NotNull Function<T, String> name) {
         if (list.isEmpty()) return Terrainer.lang().get("Target.None");
         StringBuilder formatted = new StringBuilder();
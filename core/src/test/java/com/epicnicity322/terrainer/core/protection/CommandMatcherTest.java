@@ -0,0 +1,108 @@
+/*
+ * Terrainer - A minecraft terrain claiming protection plugin.
+ * Copyright (C) 2024 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.epicnicity322.terrainer.core.protection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandMatcherTest {
+    /**
+     * Whether the command is blocked by the lists, tested with a pattern for every entry, as commands were matched
+     * before the prefix tree.
+     */
+    private static boolean blockedByPatterns(List<? extends Collection<String>> commandLists, String command) {
+        List<String> entries = new ArrayList<>();
+        for (Collection<String> commands : commandLists) entries.addAll(commands);
+
+        command = command.toLowerCase(Locale.ROOT);
+        boolean whitelist = entries.remove("*");
+
+        for (String entry : entries) {
+            if (command.matches(Pattern.quote(entry.toLowerCase(Locale.ROOT)) + "\\b.*")) return !whitelist;
+        }
+        return whitelist;
+    }
+
+    private static boolean blockedByMatcher(List<? extends Collection<String>> commandLists, String command) {
+        CommandMatcher matcher = new CommandMatcher(commandLists, 0);
+        return matcher.matches(command.toLowerCase(Locale.ROOT)) != matcher.whitelist();
+    }
+
+    @Test
+    void matchesEntriesFollowedByWordBoundary() {
+        CommandMatcher matcher = new CommandMatcher(List.of(Set.of("gamemode", "Home:", "tp")), 0);
+
+        assertFalse(matcher.whitelist());
+        assertTrue(matcher.matches("gamemode"));
+        assertTrue(matcher.matches("gamemode creative"));
+        assertFalse(matcher.matches("gamemodes"));
+        assertFalse(matcher.matches("game"));
+        assertTrue(matcher.matches("home:bed"));
+        assertFalse(matcher.matches("home: bed"));
+        assertTrue(matcher.matches("tp player"));
+        assertFalse(matcher.matches("tpa player"));
+        assertFalse(matcher.matches(""));
+    }
+
+    @Test
+    void asteriskTurnsListsIntoWhitelist() {
+        CommandMatcher matcher = new CommandMatcher(List.of(Set.of("spawn"), Set.of("*", "home")), 0);
+
+        assertTrue(matcher.whitelist());
+        assertTrue(matcher.matches("spawn"));
+        assertTrue(matcher.matches("home"));
+        assertFalse(matcher.matches("*"));
+    }
+
+    @Test
+    void matchesSameCommandsAsPatterns() {
+        Random random = new Random(322);
+        String alphabet = "abAB1_: -";
+
+        for (int test = 0; test < 2000; test++) {
+            int listAmount = 1 + random.nextInt(3);
+            List<Set<String>> commandLists = new ArrayList<>(listAmount);
+
+            for (int i = 0; i < listAmount; i++) {
+                Set<String> commands = new HashSet<>();
+                int entries = 1 + random.nextInt(5);
+                for (int j = 0; j < entries; j++) commands.add(randomString(random, alphabet, 4));
+                commandLists.add(commands);
+            }
+            if (random.nextInt(3) == 0) commandLists.get(0).add("*");
+
+            for (int j = 0; j < 20; j++) {
+                String command = randomString(random, alphabet, 8);
+                assertEquals(blockedByPatterns(commandLists, command), blockedByMatcher(commandLists, command), "Lists " + commandLists + ", command '" + command + "'");
+            }
+        }
+    }
+
+    private static String randomString(Random random, String alphabet, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return builder.toString();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Terrainer - A minecraft terrain claiming protection plugin.
+ * Copyright (C) 2024 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.epicnicity322.terrainer.core.terrain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BlockUsageTest {
+    /**
+     * Counts the blocks covered by the rectangles one by one.
+     */
+    private static long bruteForceArea(int[] rectangles, int count) {
+        int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, rectangles[i << 2]);
+            minZ = Math.min(minZ, rectangles[(i << 2) + 1]);
+            maxX = Math.max(maxX, rectangles[(i << 2) + 2]);
+            maxZ = Math.max(maxZ, rectangles[(i << 2) + 3]);
+        }
+
+        long area = 0;
+        for (int x = minX; x < maxX; x++) {
+            for (int z = minZ; z < maxZ; z++) {
+                for (int i = 0; i < count; i++) {
+                    if (x >= rectangles[i << 2] && z >= rectangles[(i << 2) + 1] && x < rectangles[(i << 2) + 2] && z < rectangles[(i << 2) + 3]) {
+                        area++;
+                        break;
+                    }
+                }
+            }
+        }
+        return area;
+    }
+
+    @Test
+    void unionAreaOfSingleRectangle() {
+        assertEquals(12, BlockUsage.unionArea(new int[]{-2, 5, 1, 9}, 1));
+    }
+
+    @Test
+    void unionAreaCountsOverlapsOnce() {
+        // Two 10x10 squares overlapping in a 5x5 square.
+        assertEquals(175, BlockUsage.unionArea(new int[]{0, 0, 10, 10, 5, 5, 15, 15}, 2));
+        // A square inside another.
+        assertEquals(100, BlockUsage.unionArea(new int[]{0, 0, 10, 10, 2, 2, 4, 4}, 2));
+        // The same square twice.
+        assertEquals(100, BlockUsage.unionArea(new int[]{0, 0, 10, 10, 0, 0, 10, 10}, 2));
+        // Squares touching on an edge don't overlap.
+        assertEquals(200, BlockUsage.unionArea(new int[]{0, 0, 10, 10, 10, 0, 20, 10}, 2));
+    }
+
+    @Test
+    void unionAreaMatchesBruteForce() {
+        Random random = new Random(322);
+
+        for (int test = 0; test < 2000; test++) {
+            int count = 1 + random.nextInt(12);
+            int[] rectangles = new int[count << 2];
+
+            for (int i = 0; i < count; i++) {
+                int minX = random.nextInt(60) - 30, minZ = random.nextInt(60) - 30;
+                rectangles[i << 2] = minX;
+                rectangles[(i << 2) + 1] = minZ;
+                rectangles[(i << 2) + 2] = minX + 1 + random.nextInt(25);
+                rectangles[(i << 2) + 3] = minZ + 1 + random.nextInt(25);
+            }
+
+            assertEquals(bruteForceArea(rectangles, count), BlockUsage.unionArea(rectangles, count), "Test " + test);
+        }
+    }
+}
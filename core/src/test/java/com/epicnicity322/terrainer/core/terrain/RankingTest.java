@@ -0,0 +1,90 @@
+/*
+ * Terrainer - A minecraft terrain claiming protection plugin.
+ * Copyright (C) 2024 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.epicnicity322.terrainer.core.terrain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankingTest {
+    private static final Comparator<Map.Entry<UUID, Long>> ORDER = Map.Entry.<UUID, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private static void assertRanked(List<Map.Entry<UUID, Long>> expected, Ranking ranking) {
+        expected.sort(ORDER);
+        for (int position = 0; position < expected.size(); position++) {
+            assertEquals(expected.get(position).getKey(), ranking.get(position), "Position " + position);
+        }
+        assertNull(ranking.get(expected.size()));
+        assertEquals(expected.isEmpty(), ranking.isEmpty());
+    }
+
+    @Test
+    void emptyRanking() {
+        Ranking ranking = new Ranking();
+        assertTrue(ranking.isEmpty());
+        assertNull(ranking.get(0));
+    }
+
+    @Test
+    void ranksHighestScoresFirstAndTiesByUUID() {
+        Ranking ranking = new Ranking();
+        UUID first = new UUID(0, 1), second = new UUID(0, 2), third = new UUID(0, 3);
+
+        ranking.add(5, second);
+        ranking.add(10, third);
+        ranking.add(5, first);
+
+        assertEquals(third, ranking.get(0));
+        assertEquals(first, ranking.get(1));
+        assertEquals(second, ranking.get(2));
+        assertNull(ranking.get(3));
+    }
+
+    @Test
+    void matchesSortedListAfterRandomChanges() {
+        Random random = new Random(322);
+        Ranking ranking = new Ranking();
+        HashMap<UUID, Long> scores = new HashMap<>();
+        UUID[] players = new UUID[200];
+        for (int i = 0; i < players.length; i++) players[i] = new UUID(random.nextLong(), random.nextLong());
+
+        for (int change = 0; change < 5000; change++) {
+            UUID player = players[random.nextInt(players.length)];
+            Long previous = scores.remove(player);
+            if (previous != null) ranking.remove(previous, player);
+
+            // Players are sometimes left out of the ranking, and scores repeat often to test ties.
+            if (random.nextInt(4) != 0) {
+                long score = random.nextInt(50);
+                scores.put(player, score);
+                ranking.add(score, player);
+            }
+
+            if (change % 250 == 0) assertRanked(new ArrayList<>(scores.entrySet()), ranking);
+        }
+
+        assertRanked(new ArrayList<>(scores.entrySet()), ranking);
+
+        for (Map.Entry<UUID, Long> entry : scores.entrySet()) ranking.remove(entry.getValue(), entry.getKey());
+        assertTrue(ranking.isEmpty());
+    }
+}